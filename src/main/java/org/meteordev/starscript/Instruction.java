@@ -54,7 +54,23 @@ public enum Instruction {
     VariableGet,
     VariableGetAppend,
 
-    End;
+    End,
+
+    Index,
+
+    VariablePath,
+    VariablePathAppend,
+
+    VariableCall,
+    VariableCallAppend,
+    VariableCallVariable,
+    VariableCallVariableAppend,
+
+    ConditionalConstant,
+    ConditionalConstantAppend,
+
+    Concat,
+    ConcatAppend;
 
     private static final Instruction[] values = values();
 
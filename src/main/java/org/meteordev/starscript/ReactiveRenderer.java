@@ -0,0 +1,177 @@
+package org.meteordev.starscript;
+
+import org.meteordev.starscript.utils.ChangeListener;
+import org.meteordev.starscript.value.ValueMap;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Renders registered scripts only when variables they reference change. <br><br>
+ *
+ * References are read from the {@link Script} code, every global variable and map path the script reads is indexed. Changes are reported by the {@link ValueMap} of the globals or by calling {@link #invalidate(String)}, a change of 'player' affects scripts reading 'player.name' and the other way around. Changed scripts are rendered once per {@link #tick()} no matter how many of their variables changed. <br><br>
+ *
+ * Changes can be reported from any thread, {@link #tick()} has to be called from the thread that is allowed to run the {@link Starscript} instance.
+ */
+public class ReactiveRenderer {
+    private final Starscript ss;
+    private final ChangeListener listener = this::invalidate;
+
+    private final Set<Registration> registrations = new LinkedHashSet<>();
+    private final Map<String, Set<Registration>> paths = new HashMap<>();
+    private final Map<String, Set<Registration>> parents = new HashMap<>();
+
+    private Set<Registration> dirty = new LinkedHashSet<>();
+
+    public ReactiveRenderer(Starscript ss) {
+        this.ss = ss;
+
+        ss.getGlobals().addListener(listener);
+    }
+
+    /** Registers a script whose output is passed to the listener every time it is rendered. It is rendered on the next {@link #tick()}. */
+    public synchronized Registration register(Script script, Consumer<Section> listener) {
+        Registration registration = new Registration(script, listener, getReferences(script));
+
+        registrations.add(registration);
+
+        for (String path : registration.references) {
+            paths.computeIfAbsent(path, k -> new HashSet<>()).add(registration);
+
+            for (int i = path.indexOf('.'); i >= 0; i = path.indexOf('.', i + 1)) {
+                parents.computeIfAbsent(path.substring(0, i), k -> new HashSet<>()).add(registration);
+            }
+        }
+
+        dirty.add(registration);
+        return registration;
+    }
+
+    private synchronized void unregister(Registration registration) {
+        if (!registrations.remove(registration)) return;
+        registration.registered = false;
+
+        for (String path : registration.references) {
+            remove(paths, path, registration);
+
+            for (int i = path.indexOf('.'); i >= 0; i = path.indexOf('.', i + 1)) {
+                remove(parents, path.substring(0, i), registration);
+            }
+        }
+
+        dirty.remove(registration);
+    }
+
+    private static void remove(Map<String, Set<Registration>> index, String path, Registration registration) {
+        Set<Registration> set = index.get(path);
+        if (set == null) return;
+
+        set.remove(registration);
+        if (set.isEmpty()) index.remove(path);
+    }
+
+    /** Marks scripts that reference the variable with the provided name, its parent maps or its children as changed. Uses dot notation, null marks all scripts. */
+    public synchronized void invalidate(String name) {
+        if (name == null) {
+            invalidateAll();
+            return;
+        }
+
+        // The variable itself and everything below it
+        mark(paths.get(name));
+        mark(parents.get(name));
+
+        // Maps containing the variable
+        for (int i = name.indexOf('.'); i >= 0; i = name.indexOf('.', i + 1)) {
+            mark(paths.get(name.substring(0, i)));
+        }
+    }
+
+    /** Marks all scripts as changed. */
+    public synchronized void invalidateAll() {
+        dirty.addAll(registrations);
+    }
+
+    private void mark(Set<Registration> registrations) {
+        if (registrations != null) dirty.addAll(registrations);
+    }
+
+    /** Renders all scripts marked as changed since the last tick and returns how many were rendered. */
+    public int tick() {
+        Set<Registration> dirty;
+
+        synchronized (this) {
+            if (this.dirty.isEmpty()) return 0;
+
+            dirty = this.dirty;
+            this.dirty = new LinkedHashSet<>();
+        }
+
+        Iterator<Registration> it = dirty.iterator();
+        int rendered = 0;
+
+        try {
+            while (it.hasNext()) {
+                Registration registration = it.next();
+
+                if (registration.registered) {
+                    registration.listener.accept(ss.run(registration.script));
+                    rendered++;
+                }
+
+                it.remove();
+            }
+        }
+        catch (RuntimeException e) {
+            // Scripts that were not rendered stay marked
+            synchronized (this) {
+                for (Registration registration : dirty) {
+                    if (registration.registered) this.dirty.add(registration);
+                }
+            }
+
+            throw e;
+        }
+
+        return rendered;
+    }
+
+    /** Stops listening to changes of the globals. */
+    public void close() {
+        ss.getGlobals().removeListener(listener);
+    }
+
+    // References
+
+    /** Returns the global variables and map paths read by the script, in dot notation. See {@link Script#getReferences()}. */
+    public static Set<String> getReferences(Script script) {
+        return script.getReferences();
+    }
+
+    // Registration
+
+    /** Script registered with {@link #register(Script, Consumer)}. */
+    public class Registration {
+        public final Script script;
+        private final Consumer<Section> listener;
+        private final Set<String> references;
+
+        private volatile boolean registered = true;
+
+        private Registration(Script script, Consumer<Section> listener, Set<String> references) {
+            this.script = script;
+            this.listener = listener;
+            this.references = references;
+        }
+
+        /** Returns the global variables and map paths that cause this script to be rendered again when changed. */
+        public Set<String> getReferences() {
+            return Collections.unmodifiableSet(references);
+        }
+
+        /** Stops rendering this script. */
+        public void unregister() {
+            ReactiveRenderer.this.unregister(this);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package org.meteordev.starscript;
+
+import org.meteordev.starscript.utils.StarscriptAppendable;
+
+import java.util.Arrays;
+
+/**
+ * Reusable output of {@link Starscript#run(Script, RenderResult)}. <br><br>
+ *
+ * The text of all sections is stored in a single buffer and every section is described by its index and start offset. Sections are returned as {@link CharSequence} views over the buffer which are reused by every run, so rendering into the same result again does not allocate once the buffers are large enough. Views and the text they return are only valid until the next run. <br><br>
+ *
+ * Results created with change tracking keep the output of the previous run in a second buffer and compare it with the new output at the end of every run, see {@link #hasChanged()}.
+ */
+public class RenderResult implements CharSequence, StarscriptAppendable {
+    StringBuilder sb = new StringBuilder();
+
+    private int[] indexes = new int[4];
+    private int[] offsets = new int[4];
+    private SectionView[] views = new SectionView[4];
+    private int count;
+
+    private final boolean trackChanges;
+    private StringBuilder previous;
+    private int[] previousIndexes, previousOffsets;
+    private int previousCount;
+
+    private boolean changed = true;
+    private int hash;
+    private boolean hashed;
+
+    public RenderResult(boolean trackChanges) {
+        this.trackChanges = trackChanges;
+
+        if (trackChanges) {
+            previous = new StringBuilder();
+            previousIndexes = new int[indexes.length];
+            previousOffsets = new int[offsets.length];
+        }
+    }
+
+    public RenderResult() {
+        this(false);
+    }
+
+    void reset() {
+        if (trackChanges) {
+            StringBuilder sb = previous; previous = this.sb; this.sb = sb;
+            int[] indexes = previousIndexes; previousIndexes = this.indexes; this.indexes = indexes;
+            int[] offsets = previousOffsets; previousOffsets = this.offsets; this.offsets = offsets;
+            previousCount = count;
+        }
+
+        // Stays like this if the run throws
+        changed = true;
+        hashed = false;
+
+        sb.setLength(0);
+
+        indexes[0] = 0;
+        offsets[0] = 0;
+        count = 1;
+    }
+
+    void beginSection(int index) {
+        if (count >= indexes.length) {
+            int length = indexes.length * 2;
+
+            if (trackChanges) {
+                previousIndexes = Arrays.copyOf(previousIndexes, length);
+                previousOffsets = Arrays.copyOf(previousOffsets, length);
+            }
+
+            indexes = Arrays.copyOf(indexes, length);
+            offsets = Arrays.copyOf(offsets, length);
+            views = Arrays.copyOf(views, length);
+        }
+
+        indexes[count] = index;
+        offsets[count] = sb.length();
+        count++;
+    }
+
+    void finish() {
+        if (!trackChanges) return;
+
+        changed = count != previousCount || sb.length() != previous.length();
+
+        for (int i = 0; !changed && i < count; i++) {
+            if (indexes[i] != previousIndexes[i] || offsets[i] != previousOffsets[i]) changed = true;
+        }
+
+        // Compare the text and compute the hash in a single pass
+        int h = 0;
+        int length = sb.length();
+        int i = 0;
+
+        if (!changed) {
+            for (; i < length; i++) {
+                char c = sb.charAt(i);
+                if (c != previous.charAt(i)) { changed = true; break; }
+                h = 31 * h + c;
+            }
+        }
+
+        for (; i < length; i++) h = 31 * h + sb.charAt(i);
+
+        hash = h;
+        hashed = true;
+    }
+
+    /** Returns true if the text or the sections differ from the previous run into this result. Always true if changes are not tracked, see {@link #RenderResult(boolean)}. */
+    public boolean hasChanged() {
+        return changed;
+    }
+
+    /** Returns true if this result compares every run with the previous one. */
+    public boolean isTrackingChanges() {
+        return trackChanges;
+    }
+
+    /** Returns the hash of the text of all sections, equal to {@code toString().hashCode()} but without creating the string. */
+    public int getHash() {
+        if (!hashed) {
+            int h = 0;
+            for (int i = 0; i < sb.length(); i++) h = 31 * h + sb.charAt(i);
+
+            hash = h;
+            hashed = true;
+        }
+
+        return hash;
+    }
+
+    /** Returns the number of sections, there is always at least one. */
+    public int getSectionCount() {
+        return count;
+    }
+
+    /** Returns the index of the i-th section, set with '#index' in the source. */
+    public int getSectionIndex(int i) {
+        checkSection(i);
+        return indexes[i];
+    }
+
+    /** Returns the offset of the first character of the i-th section. */
+    public int getSectionStart(int i) {
+        checkSection(i);
+        return offsets[i];
+    }
+
+    /** Returns the offset after the last character of the i-th section. */
+    public int getSectionEnd(int i) {
+        checkSection(i);
+        return i + 1 < count ? offsets[i + 1] : sb.length();
+    }
+
+    /** Returns the text of the i-th section. The returned view is reused and reflects the content of later runs. */
+    public SectionView getSection(int i) {
+        checkSection(i);
+
+        SectionView view = views[i];
+        if (view == null) {
+            view = new SectionView(i);
+            views[i] = view;
+        }
+
+        return view;
+    }
+
+    private void checkSection(int i) {
+        if (i < 0 || i >= count) throw new IndexOutOfBoundsException("Section " + i + " out of " + count + ".");
+    }
+
+    /** Creates the linked list of sections returned by {@link Starscript#run(Script)}. */
+    public Section toSection() {
+        Section first = new Section(indexes[0], sb.substring(0, getSectionEnd(0)));
+        Section section = first;
+
+        for (int i = 1; i < count; i++) {
+            section.next = new Section(indexes[i], sb.substring(offsets[i], getSectionEnd(i)));
+            section = section.next;
+        }
+
+        return first;
+    }
+
+    // Text of all sections
+
+    @Override
+    public int length() {
+        return sb.length();
+    }
+
+    @Override
+    public char charAt(int index) {
+        return sb.charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return sb.subSequence(start, end);
+    }
+
+    @Override
+    public void appendTo(StringBuilder sb) {
+        sb.append(this.sb);
+    }
+
+    @Override
+    public String toString() {
+        return sb.toString();
+    }
+
+    /** Text of a single section, see {@link #getSection(int)}. */
+    public class SectionView implements CharSequence, StarscriptAppendable {
+        private final int section;
+
+        private SectionView(int section) {
+            this.section = section;
+        }
+
+        /** Returns the index of this section, set with '#index' in the source. */
+        public int getIndex() {
+            return getSectionIndex(section);
+        }
+
+        @Override
+        public int length() {
+            return getSectionEnd(section) - getSectionStart(section);
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length()) throw new IndexOutOfBoundsException("Index " + index + " out of " + length() + ".");
+            return sb.charAt(getSectionStart(section) + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            int offset = getSectionStart(section);
+            if (start < 0 || end > length() || start > end) throw new IndexOutOfBoundsException("Range " + start + ".." + end + " out of " + length() + ".");
+
+            return sb.subSequence(offset + start, offset + end);
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb) {
+            sb.append(RenderResult.this.sb, getSectionStart(section), getSectionEnd(section));
+        }
+
+        @Override
+        public String toString() {
+            return sb.substring(getSectionStart(section), getSectionEnd(section));
+        }
+    }
+}
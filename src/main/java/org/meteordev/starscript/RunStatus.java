@@ -0,0 +1,67 @@
+package org.meteordev.starscript;
+
+import org.meteordev.starscript.utils.StarscriptError;
+
+/** Outcome of the last run of a {@link Starscript} instance, see {@link Starscript#getStatus()}. The same object is reused for every run. */
+public class RunStatus {
+    /** Limit that stopped a run early, see {@link Starscript#setInstructionLimit(long)}, {@link Starscript#setOutputLimit(int)} and {@link Starscript#setTimeLimit(long)}. */
+    public enum Limit {
+        Instructions,
+        Output,
+        Time
+    }
+
+    private StarscriptError error;
+    private int offset = -1;
+    private Limit limit;
+
+    void reset() {
+        error = null;
+        offset = -1;
+        limit = null;
+    }
+
+    void stop(Limit limit) {
+        if (this.limit == null) this.limit = limit;
+    }
+
+    void fail(StarscriptError error, int offset) {
+        this.error = error;
+        this.offset = offset;
+    }
+
+    /** Returns true if the last run finished without an error. */
+    public boolean isOk() {
+        return error == null;
+    }
+
+    /** Returns true if the last run was stopped by a limit and the output is incomplete. */
+    public boolean isPartial() {
+        return limit != null;
+    }
+
+    /** Returns the limit that stopped the last run or null if none did. */
+    public Limit getLimit() {
+        return limit;
+    }
+
+    /** Returns the kind of the error or null if there was none. */
+    public StarscriptError.Code getCode() {
+        return error != null ? error.getCode() : null;
+    }
+
+    /** Returns the offset inside {@link Script#code} of the instruction that failed or -1 if there was no error. */
+    public int getOffset() {
+        return offset;
+    }
+
+    /** Returns the error or null if there was none. */
+    public StarscriptError getError() {
+        return error;
+    }
+
+    /** Returns the formatted error message or null if there was no error. */
+    public String getMessage() {
+        return error != null ? error.getMessage() : null;
+    }
+}
@@ -1,26 +1,37 @@
 package org.meteordev.starscript;
 
+import org.meteordev.starscript.optimizer.InstructionList;
 import org.meteordev.starscript.value.Value;
+import org.meteordev.starscript.value.ValueType;
 
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.*;
+import java.util.*;
 
 /** Compiled representation of starscript code that can be run inside {@link Starscript}. */
 public class Script {
+    /** Constants are referenced by a single byte so a script can have at most this many. */
+    public static final int MAX_CONSTANTS = 256;
+
     public byte[] code = new byte[8];
     private int size;
 
-    public final List<Value> constants = new ArrayList<>();
+    /** Constant pool of this script, after {@link #compact()} it is backed by an array and can be shared with other scripts. */
+    public final List<Value> constants = new ConstantList();
+    /** The list behind {@link #constants}, replaced when the pool is compacted or shared. */
+    List<Value> constantPool = new ArrayList<>();
+    private Map<Value, Integer> constantIndexes = new HashMap<>();
+
+    private Set<String> references;
 
     private void write(int b) {
         if (size >= code.length) {
-            byte[] newCode = new byte[code.length * 2];
+            byte[] newCode = new byte[Math.max(code.length * 2, 8)];
             System.arraycopy(code, 0, newCode, 0, code.length);
             code = newCode;
         }
 
         code[size++] = (byte) b;
+        references = null;
     }
 
     /** Writes instruction to this script. */
@@ -40,20 +51,23 @@ public class Script {
         writeConstant(constant);
     }
 
-    /** Writes constant value to this script. */
+    /** Writes constant value to this script. Equal constants are only stored once, throws if there would be more than {@link #MAX_CONSTANTS}. */
     public void writeConstant(Value constant) {
-        int constantI = -1;
-
-        for (int i = 0; i < constants.size(); i++) {
-            if (constants.get(i).equals(constant)) {
-                constantI = i;
-                break;
-            }
+        if (constantIndexes == null) {
+            // Compacted, the pool might be shared
+            constantPool = new ArrayList<>(constantPool);
+            constantIndexes = new HashMap<>();
+            for (int i = 0; i < constantPool.size(); i++) constantIndexes.putIfAbsent(constantPool.get(i), i);
         }
 
-        if (constantI == -1) {
-            constantI = constants.size();
-            constants.add(constant);
+        Integer constantI = constantIndexes.get(constant);
+
+        if (constantI == null) {
+            if (constantPool.size() >= MAX_CONSTANTS) throw new IllegalStateException("Script can't have more than " + MAX_CONSTANTS + " constants.");
+
+            constantI = constantPool.size();
+            constantPool.add(constant);
+            constantIndexes.put(constant, constantI);
         }
 
         write(constantI);
@@ -81,6 +95,151 @@ public class Script {
         return size;
     }
 
+    /** Trims {@link #code} to {@link #getSize()} and replaces the constant pool with a fixed size array backed one. Writing to the script afterwards still works but allocates again. See {@link ScriptBundle}. */
+    public void compact() {
+        if (code.length != size) code = Arrays.copyOf(code, size);
+
+        if (constantIndexes != null) {
+            constantPool = Arrays.asList(constantPool.toArray(new Value[0]));
+            constantIndexes = null;
+        }
+    }
+
+    /** Returns true if {@link #compact()} was called and nothing was written since. */
+    public boolean isCompact() {
+        return constantIndexes == null && code.length == size;
+    }
+
+    /** Returns the global variables and map paths read by this script, in dot notation. Only names found directly in the code are returned, values reached through function calls are not. */
+    public Set<String> getReferences() {
+        if (references == null) {
+            Set<String> references = new LinkedHashSet<>();
+
+            for (InstructionList.Insn insn : InstructionList.decode(this)) {
+                Value[] constants = insn.constants;
+
+                switch (insn.insn) {
+                    case Variable:
+                    case VariableAppend:
+                    case VariableCall:
+                    case VariableCallAppend:         references.add(constants[0].getString()); break;
+                    case VariableGet:
+                    case VariableGetAppend:          references.add(constants[0].getString() + "." + constants[1].getString()); break;
+                    case VariableCallVariable:
+                    case VariableCallVariableAppend: references.add(constants[0].getString()); references.add(constants[1].getString()); break;
+                    case VariablePath:
+                    case VariablePathAppend: {
+                        StringBuilder path = new StringBuilder(constants[0].getString());
+                        for (int i = 1; i < constants.length; i++) path.append('.').append(constants[i].getString());
+
+                        references.add(path.toString());
+                        break;
+                    }
+                }
+            }
+
+            this.references = Collections.unmodifiableSet(references);
+        }
+
+        return references;
+    }
+
+    // Serialization
+
+    private static final int FORMAT_VERSION = 1;
+    /** Hash of the instruction and value type names, changes whenever their ordinals may have changed. */
+    private static final int INSTRUCTION_SET = instructionSet();
+
+    /** Writes this script in a binary form that can be read by {@link #load(DataInput)}. Only null, boolean, number and string constants are supported. */
+    public void save(DataOutput out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeInt(INSTRUCTION_SET);
+
+        out.writeInt(size);
+        out.write(code, 0, size);
+
+        out.writeShort(constants.size());
+
+        for (Value constant : constants) {
+            out.writeByte(constant.type.ordinal());
+
+            switch (constant.type) {
+                case Null:    break;
+                case Boolean: out.writeBoolean(constant.getBool()); break;
+                case Number:  out.writeDouble(constant.getNumber()); break;
+                case String:  out.writeUTF(constant.getString()); break;
+                default:      throw new IllegalStateException("Can't save a " + constant.type + " constant.");
+            }
+        }
+    }
+
+    /** Reads a script written by {@link #save(DataOutput)}. The script is already compacted, see {@link #compact()}. */
+    public static Script load(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) throw new IOException("Unsupported script format version " + version + ".");
+
+        int instructionSet = in.readInt();
+        if (instructionSet != INSTRUCTION_SET) throw new IOException("Script was saved with a different instruction set, compile it again.");
+
+        Script script = new Script();
+
+        script.size = in.readInt();
+        script.code = new byte[script.size];
+        in.readFully(script.code);
+
+        Value[] constants = new Value[in.readUnsignedShort()];
+
+        for (int i = 0; i < constants.length; i++) {
+            int type = in.readUnsignedByte();
+            if (type >= ValueType.values().length) throw new IOException("Unknown constant type " + type + ".");
+
+            switch (ValueType.values()[type]) {
+                case Null:    constants[i] = Value.null_(); break;
+                case Boolean: constants[i] = Value.bool(in.readBoolean()); break;
+                case Number:  constants[i] = Value.number(in.readDouble()); break;
+                case String:  constants[i] = Value.string(in.readUTF()); break;
+                default:      throw new IOException("Unsupported constant type " + ValueType.values()[type] + ".");
+            }
+        }
+
+        script.constantPool = Arrays.asList(constants);
+        script.constantIndexes = null;
+
+        return script;
+    }
+
+    private static int instructionSet() {
+        int hash = 1;
+
+        for (Instruction insn : Instruction.values()) hash = 31 * hash + insn.name().hashCode();
+        hash = 31 * hash;
+        for (ValueType type : ValueType.values()) hash = 31 * hash + type.name().hashCode();
+
+        return hash;
+    }
+
+    /** Returns this script in the binary form written by {@link #save(DataOutput)}. */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size + 64);
+
+        try {
+            save(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /** Reads a script from the binary form returned by {@link #toBytes()}. */
+    public static Script fromBytes(byte[] bytes) {
+        try {
+            return load(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid script data.", e);
+        }
+    }
+
     // Decompilation
 
     /** Decompiles this script and writes it to the {@link Appendable} argument. */
@@ -88,7 +247,7 @@ public class Script {
         try {
             for (int i = 0; i < size; i++) {
                 Instruction insn = Instruction.valueOf(code[i]);
-                out.append(String.format("%3d %-18s", i, insn));
+                out.append(String.format("%3d %-26s", i, insn));
 
                 switch (insn) {
                     case AddConstant:
@@ -104,8 +263,24 @@ public class Script {
                     case JumpIfTrue:
                     case JumpIfFalse:       i += 2; out.append(String.format("%3d -> %d", i - 2, i + 1 + (((code[i - 1] << 8) & 0xFF) | (code[i] & 0xFF)))); break;
                     case Section:           i++; out.append(String.format("%3d", code[i])); break;
+                    case Concat:
+                    case ConcatAppend:      i++; out.append(String.format("%3d operands", code[i] & 0xFF)); break;
                     case VariableGet:
                     case VariableGetAppend: i += 2; out.append(String.format("%3d.%-3d '%s.%s'", code[i - 1], code[i], constants.get(code[i - 1] & 0xFF), constants.get(code[i] & 0xFF))); break;
+                    case VariablePath:
+                    case VariablePathAppend: {
+                        int count = code[++i] & 0xFF;
+                        StringBuilder path = new StringBuilder(constants.get(code[++i] & 0xFF).toString());
+                        for (int j = 0; j < count; j++) path.append('.').append(constants.get(code[++i] & 0xFF));
+                        out.append(String.format("%3d '%s'", count, path));
+                        break;
+                    }
+                    case VariableCall:
+                    case VariableCallAppend: i += 2; out.append(String.format("%3d '%s' %d %s", code[i], constants.get(code[i] & 0xFF), code[i - 1], code[i - 1] == 1 ? "argument" : "arguments")); break;
+                    case VariableCallVariable:
+                    case VariableCallVariableAppend: i += 2; out.append(String.format("%3d.%-3d '%s(%s)'", code[i - 1], code[i], constants.get(code[i - 1] & 0xFF), constants.get(code[i] & 0xFF))); break;
+                    case ConditionalConstant:
+                    case ConditionalConstantAppend: i += 2; out.append(String.format("%3d.%-3d '%s' : '%s'", code[i - 1], code[i], constants.get(code[i - 1] & 0xFF), constants.get(code[i] & 0xFF))); break;
                 }
 
                 out.append('\n');
@@ -119,4 +294,31 @@ public class Script {
     public void decompile() {
         decompile(System.out);
     }
+
+    private class ConstantList extends AbstractList<Value> implements RandomAccess {
+        @Override
+        public Value get(int index) {
+            return constantPool.get(index);
+        }
+
+        @Override
+        public Value set(int index, Value element) {
+            return constantPool.set(index, element);
+        }
+
+        @Override
+        public void add(int index, Value element) {
+            constantPool.add(index, element);
+        }
+
+        @Override
+        public Value remove(int index) {
+            return constantPool.remove(index);
+        }
+
+        @Override
+        public int size() {
+            return constantPool.size();
+        }
+    }
 }
@@ -0,0 +1,103 @@
+package org.meteordev.starscript;
+
+import org.meteordev.starscript.value.Value;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deduplicates large amounts of compiled scripts. <br><br>
+ *
+ * Added scripts are compacted with {@link Script#compact()}, equal constant values are replaced with a single instance, scripts with equal constant pools share one pool and scripts with equal code and constants are replaced with the first one added. Constant indexes are a single byte so a pool can't be shared by scripts that use different constants. <br><br>
+ *
+ * Scripts returned by {@link #add(Script)} can be shared so they should not be written to anymore.
+ */
+public class ScriptBundle {
+    private final Map<Value, Value> values = new HashMap<>();
+    private final Map<List<Value>, List<Value>> pools = new HashMap<>();
+    private final Map<Key, Script> scripts = new HashMap<>();
+
+    private int added, unshared;
+
+    /** Adds a script to this bundle and returns the instance that should be used instead of it, either the same script compacted or an equal script added before. */
+    public synchronized Script add(Script script) {
+        script.compact();
+        added++;
+
+        List<Value> constants = script.constantPool;
+        boolean shareable = true;
+
+        for (int i = 0; i < constants.size(); i++) {
+            Value value = constants.get(i);
+
+            // The content of char sequences can change so they are never considered equal to anything
+            if (value.isCharSequence()) {
+                shareable = false;
+                continue;
+            }
+
+            Value interned = values.putIfAbsent(value, value);
+            if (interned != null) constants.set(i, interned);
+        }
+
+        if (!shareable) {
+            unshared++;
+            return script;
+        }
+
+        List<Value> pool = pools.putIfAbsent(constants, constants);
+        if (pool != null) script.constantPool = pool;
+
+        Script interned = scripts.putIfAbsent(new Key(script), script);
+        return interned != null ? interned : script;
+    }
+
+    /** Returns the number of scripts passed to {@link #add(Script)}. */
+    public synchronized int getAdded() {
+        return added;
+    }
+
+    /** Returns the number of distinct scripts. */
+    public synchronized int size() {
+        return scripts.size() + unshared;
+    }
+
+    /** Returns the number of distinct constant pools. */
+    public synchronized int getPoolCount() {
+        return pools.size();
+    }
+
+    /** Returns the number of distinct constant values. */
+    public synchronized int getValueCount() {
+        return values.size();
+    }
+
+    private static class Key {
+        private final byte[] code;
+        private final List<Value> constants;
+        private final int hash;
+
+        private Key(Script script) {
+            this.code = script.code;
+            this.constants = script.constantPool;
+            this.hash = 31 * Arrays.hashCode(code) + System.identityHashCode(constants);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            // Equal pools are the same instance at this point
+            Key key = (Key) o;
+            return constants == key.constants && Arrays.equals(code, key.code);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -1,40 +1,71 @@
 package org.meteordev.starscript;
 
+import org.meteordev.starscript.utils.NumberFn1;
+import org.meteordev.starscript.utils.NumberFn2;
+import org.meteordev.starscript.utils.SAppendFunction;
+import org.meteordev.starscript.utils.SFunction;
+import org.meteordev.starscript.utils.StarscriptAppendable;
+import org.meteordev.starscript.utils.StringFn1;
 import org.meteordev.starscript.value.Value;
 
 import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Random;
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /** Standard library with some default functions and variables. */
 public class StandardLib {
-    private static final Random rand = new Random();
-
+    /** @deprecated No longer used by the time variable, changes to it have no effect. Use {@link #setTimeFormat(DateTimeFormatter)} instead. */
+    @Deprecated
     public static final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm");
+    /** @deprecated No longer used by the date variable, changes to it have no effect. Use {@link #setDateFormat(DateTimeFormatter)} instead. */
+    @Deprecated
     public static final SimpleDateFormat dateFormat = new SimpleDateFormat("dd. MM. yyyy");
 
+    private static final CachedClock time = new CachedClock(Clock.systemDefaultZone(), DateTimeFormatter.ofPattern("HH:mm"), ChronoUnit.MINUTES);
+    private static final CachedClock date = new CachedClock(Clock.systemDefaultZone(), DateTimeFormatter.ofPattern("dd. MM. yyyy"), ChronoUnit.DAYS);
+
+    /** Sets the format of the time variable, 'HH:mm' by default. Applies to all instances, including ones initialized before. The time is formatted once per minute so the pattern should not show seconds. */
+    public static void setTimeFormat(DateTimeFormatter formatter) {
+        time.setFormatter(formatter);
+    }
+
+    /** Sets the format of the date variable, 'dd. MM. yyyy' by default. Applies to all instances, including ones initialized before. */
+    public static void setDateFormat(DateTimeFormatter formatter) {
+        date.setFormatter(formatter);
+    }
+
     /** Adds the functions and variables to the provided {@link Starscript} instance. */
     public static void init(Starscript ss) {
         // Variables
         ss.set("PI", Math.PI);
-        ss.set("time", () -> Value.string(timeFormat.format(new Date())));
-        ss.set("date", () -> Value.string(dateFormat.format(new Date())));
+        ss.set("time", time);
+        ss.set("date", date);
 
         // Numbers
-        ss.set("round", StandardLib::round);
-        ss.set("roundToString", StandardLib::roundToString);
-        ss.set("floor", StandardLib::floor);
-        ss.set("ceil", StandardLib::ceil);
-        ss.set("abs", StandardLib::abs);
-        ss.set("random", StandardLib::random);
+        ss.set("round", new Round());
+        ss.set("roundToString", new RoundToString());
+        ss.set("floor", new Number1(Math::floor, StandardLib::floor));
+        ss.set("ceil", new Number1(Math::ceil, StandardLib::ceil));
+        ss.set("abs", new Number1(Math::abs, StandardLib::abs));
+        ss.set("random", new Number2((min, max) -> min + (max - min) * ThreadLocalRandom.current().nextDouble(), StandardLib::random));
 
         // Strings
         ss.set("string", StandardLib::string);
-        ss.set("toUpper", StandardLib::toUpper);
-        ss.set("toLower", StandardLib::toLower);
+        ss.set("toUpper", new ChangeCase(true));
+        ss.set("toLower", new ChangeCase(false));
         ss.set("contains", StandardLib::contains);
-        ss.set("replace", StandardLib::replace);
-        ss.set("pad", StandardLib::pad);
+        ss.set("replace", new Replace());
+        ss.set("pad", new Pad());
+
+        // Lists
+        ss.set("len", StandardLib::len);
+        ss.set("join", StandardLib::join);
     }
 
     // Numbers
@@ -94,12 +125,12 @@ public class StandardLib {
     }
 
     public static Value random(Starscript ss, int argCount) {
-        if (argCount == 0) return Value.number(rand.nextDouble());
+        if (argCount == 0) return Value.number(ThreadLocalRandom.current().nextDouble());
         else if (argCount == 2) {
             double max = ss.popNumber("Second argument to random() needs to be a number.");
             double min = ss.popNumber("First argument to random() needs to be a number.");
 
-            return Value.number(min + (max - min) * rand.nextDouble());
+            return Value.number(min + (max - min) * ThreadLocalRandom.current().nextDouble());
         }
 
         ss.error("random() requires 0 or 2 arguments, got %d.", argCount);
@@ -150,20 +181,347 @@ public class StandardLib {
         int width = (int) ss.popNumber("Second argument to pad() needs to be a number.");
         String text = ss.pop().toString();
 
-        if (text.length() >= Math.abs(width)) return Value.string(text);
+        return Value.string(pad(text, width));
+    }
 
-        char[] padded = new char[Math.max(text.length(), Math.abs(width))];
+    /** Pads the text with spaces to the width, on the left when positive and on the right when negative. */
+    private static String pad(String text, int width) {
+        if (text.length() >= Math.abs(width)) return text;
+
+        char[] padded = new char[Math.abs(width)];
 
         if (width >= 0) {
             int padLength = width - text.length();
             for (int i = 0; i < padLength; i++) padded[i] = ' ';
-            for (int i = 0; i < text.length(); i++) padded[padLength + i] = text.charAt(i);
+            text.getChars(0, text.length(), padded, padLength);
         }
         else {
-            for (int i = 0; i < text.length(); i++) padded[i] = text.charAt(i);
-            for (int i = 0; i < Math.abs(width) - text.length(); i++) padded[text.length() + i] = ' ';
+            text.getChars(0, text.length(), padded, 0);
+            for (int i = text.length(); i < padded.length; i++) padded[i] = ' ';
+        }
+
+        return new String(padded);
+    }
+
+    // Lists
+
+    public static Value len(Starscript ss, int argCount) {
+        if (argCount != 1) ss.error("len() requires 1 argument, got %d.", argCount);
+        Value a = ss.pop();
+
+        if (a.isList()) return Value.number(a.getList().length);
+        if (a.isString()) return Value.number(a.getString().length());
+        if (a.isMap()) return Value.number(a.getMap().keys().size());
+
+        ss.error("Argument to len() needs to be a list, string or map.");
+        return null;
+    }
+
+    public static Value join(Starscript ss, int argCount) {
+        if (argCount < 1 || argCount > 2) ss.error("join() requires 1 or 2 arguments, got %d.", argCount);
+
+        String separator = argCount == 2 ? ss.popString("Second argument to join() needs to be a string.") : ", ";
+        Value a = ss.pop();
+        if (!a.isList()) ss.error("First argument to join() needs to be a list.");
+
+        return Value.charSequence(new JoinedList(a.getList(), separator));
+    }
+
+    /** Elements of a list joined with a separator. They are appended to the output one by one, a string is only created if something asks for it. */
+    private static class JoinedList implements CharSequence, StarscriptAppendable {
+        private final Value[] values;
+        private final String separator;
+
+        private String string;
+
+        public JoinedList(Value[] values, String separator) {
+            this.values = values;
+            this.separator = separator;
+        }
+
+        @Override
+        public void appendTo(StringBuilder sb) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) sb.append(separator);
+                values[i].appendTo(sb);
+            }
+        }
+
+        @Override
+        public int length() {
+            return toString().length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return toString().charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            if (string == null) {
+                StringBuilder sb = new StringBuilder();
+                appendTo(sb);
+                string = sb.toString();
+            }
+
+            return string;
+        }
+    }
+
+    // Clock
+
+    /** Formats the current time only when it moves to a different minute or day, in between it returns the same cached value. */
+    private static class CachedClock implements Supplier<Value> {
+        private final Clock clock;
+        private final ChronoUnit unit;
+
+        private final AtomicReference<Entry> entry;
+
+        public CachedClock(Clock clock, DateTimeFormatter formatter, ChronoUnit unit) {
+            this.clock = clock;
+            this.unit = unit;
+            this.entry = new AtomicReference<>(new Entry(0, 0, null, formatter));
+        }
+
+        public void setFormatter(DateTimeFormatter formatter) {
+            entry.set(new Entry(0, 0, null, formatter));
+        }
+
+        @Override
+        public Value get() {
+            Entry entry = this.entry.get();
+            long now = clock.millis();
+
+            if (now >= entry.start && now < entry.end) return entry.value;
+            return refresh(entry);
+        }
+
+        private Value refresh(Entry previous) {
+            ZonedDateTime now = ZonedDateTime.now(clock);
+            ZonedDateTime start = unit == ChronoUnit.DAYS ? now.toLocalDate().atStartOfDay(now.getZone()) : now.truncatedTo(unit);
+            ZonedDateTime end = unit == ChronoUnit.DAYS ? now.toLocalDate().plusDays(1).atStartOfDay(now.getZone()) : start.plus(1, unit);
+
+            Entry entry = new Entry(start.toInstant().toEpochMilli(), end.toInstant().toEpochMilli(), Value.string(previous.formatter.format(now)), previous.formatter);
+
+            // Fails if the formatter was changed meanwhile, the next call formats the time again
+            this.entry.compareAndSet(previous, entry);
+            return entry.value;
+        }
+
+        private static class Entry {
+            public final long start, end;
+            public final Value value;
+            public final DateTimeFormatter formatter;
+
+            public Entry(long start, long end, Value value, DateTimeFormatter formatter) {
+                this.start = start;
+                this.end = end;
+                this.value = value;
+                this.formatter = formatter;
+            }
+        }
+    }
+
+    // Typed functions
+
+    /** Called directly with unboxed arguments for 1 or 2 numbers, otherwise falls back to {@link #round(Starscript, int)}. */
+    private static class Round implements NumberFn1, NumberFn2 {
+        @Override
+        public double apply(double a) {
+            return Math.round(a);
+        }
+
+        @Override
+        public double apply(double a, double b) {
+            double x = Math.pow(10, (int) b);
+            return Math.round(a * x) / x;
         }
 
-        return Value.string(new String(padded));
+        @Override
+        public Value run(Starscript ss, int argCount) {
+            return round(ss, argCount);
+        }
+    }
+
+    /** Typed function that uses the generic function for error reporting when the arguments do not match. */
+    private static class Number1 implements NumberFn1 {
+        private final NumberFn1 function;
+        private final SFunction generic;
+
+        public Number1(NumberFn1 function, SFunction generic) {
+            this.function = function;
+            this.generic = generic;
+        }
+
+        @Override
+        public double apply(double a) {
+            return function.apply(a);
+        }
+
+        @Override
+        public Value run(Starscript ss, int argCount) {
+            return generic.run(ss, argCount);
+        }
+    }
+
+    /** Typed function that uses the generic function for error reporting when the arguments do not match. */
+    private static class Number2 implements NumberFn2 {
+        private final NumberFn2 function;
+        private final SFunction generic;
+
+        public Number2(NumberFn2 function, SFunction generic) {
+            this.function = function;
+            this.generic = generic;
+        }
+
+        @Override
+        public double apply(double a, double b) {
+            return function.apply(a, b);
+        }
+
+        @Override
+        public Value run(Starscript ss, int argCount) {
+            return generic.run(ss, argCount);
+        }
+    }
+
+    /** toUpper() and toLower(), text that only contains ASCII characters is converted while it is appended. */
+    private static class ChangeCase implements StringFn1, SAppendFunction {
+        private final boolean upper;
+        private final String argumentCountError, argumentError;
+
+        public ChangeCase(boolean upper) {
+            this.upper = upper;
+
+            String name = upper ? "toUpper()" : "toLower()";
+            this.argumentCountError = name + " requires 1 argument, got %d.";
+            this.argumentError = "Argument to " + name + " needs to be a string.";
+        }
+
+        @Override
+        public String apply(String a) {
+            return upper ? a.toUpperCase() : a.toLowerCase();
+        }
+
+        @Override
+        public Value run(Starscript ss, int argCount) {
+            return upper ? toUpper(ss, argCount) : toLower(ss, argCount);
+        }
+
+        @Override
+        public void append(Starscript ss, int argCount, StringBuilder sb) {
+            if (argCount != 1) ss.error(argumentCountError, argCount);
+            String a = ss.popString(argumentError);
+
+            if (!isAscii(a) || hasSpecialCasing(Locale.getDefault())) {
+                sb.append(apply(a));
+                return;
+            }
+
+            for (int i = 0; i < a.length(); i++) {
+                char c = a.charAt(i);
+                if (upper ? (c >= 'a' && c <= 'z') : (c >= 'A' && c <= 'Z')) c ^= 0x20;
+
+                sb.append(c);
+            }
+        }
+
+        private static boolean isAscii(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) >= 0x80) return false;
+            }
+
+            return true;
+        }
+
+        /** Languages where {@link String#toUpperCase()} and {@link String#toLowerCase()} do not map ASCII letters the usual way. */
+        private static boolean hasSpecialCasing(Locale locale) {
+            String language = locale.getLanguage();
+            return language.equals("tr") || language.equals("az") || language.equals("lt");
+        }
+    }
+
+    /** roundToString() that appends the number without creating a string. */
+    private static class RoundToString implements SAppendFunction {
+        @Override
+        public Value run(Starscript ss, int argCount) {
+            return roundToString(ss, argCount);
+        }
+
+        @Override
+        public void append(Starscript ss, int argCount, StringBuilder sb) {
+            if (argCount == 1) {
+                double a = ss.popNumber("Argument to round() needs to be a number.");
+                sb.append((double) Math.round(a));
+            }
+            else if (argCount == 2) {
+                double b = ss.popNumber("Second argument to round() needs to be a number.");
+                double a = ss.popNumber("First argument to round() needs to be a number.");
+
+                double x = Math.pow(10, (int) b);
+                sb.append(Math.round(a * x) / x);
+            }
+            else ss.error("round() requires 1 or 2 arguments, got %d.", argCount);
+        }
+    }
+
+    /** replace() that appends the parts between matches and the replacements without creating the replaced string. */
+    private static class Replace implements SAppendFunction {
+        @Override
+        public Value run(Starscript ss, int argCount) {
+            return replace(ss, argCount);
+        }
+
+        @Override
+        public void append(Starscript ss, int argCount, StringBuilder sb) {
+            if (argCount != 3) ss.error("replace() requires 3 arguments, got %d.", argCount);
+
+            String to = ss.popString("Third argument to replace() needs to be a string.");
+            String from = ss.popString("Second argument to replace() needs to be a string.");
+            String string = ss.popString("First argument to replace() needs to be a string.");
+
+            // An empty target matches between every character
+            if (from.isEmpty()) {
+                sb.append(string.replace(from, to));
+                return;
+            }
+
+            int start = 0;
+
+            for (int i = string.indexOf(from); i >= 0; i = string.indexOf(from, start)) {
+                sb.append(string, start, i).append(to);
+                start = i + from.length();
+            }
+
+            sb.append(string, start, string.length());
+        }
+    }
+
+    /** pad() that appends the spaces and the text without creating the padded string. */
+    private static class Pad implements SAppendFunction {
+        @Override
+        public Value run(Starscript ss, int argCount) {
+            return pad(ss, argCount);
+        }
+
+        @Override
+        public void append(Starscript ss, int argCount, StringBuilder sb) {
+            if (argCount != 2) ss.error("pad() requires 2 arguments, got %d.", argCount);
+
+            int width = (int) ss.popNumber("Second argument to pad() needs to be a number.");
+            String text = ss.pop().toString();
+
+            int padLength = Math.abs(width) - text.length();
+
+            if (width >= 0) for (int i = 0; i < padLength; i++) sb.append(' ');
+            sb.append(text);
+            if (width < 0) for (int i = 0; i < padLength; i++) sb.append(' ');
+        }
     }
 }
@@ -4,9 +4,23 @@ import org.meteordev.starscript.compiler.Expr;
 import org.meteordev.starscript.compiler.Parser;
 import org.meteordev.starscript.utils.Error;
 import org.meteordev.starscript.utils.*;
+import org.meteordev.starscript.value.AsyncSupplier;
+import org.meteordev.starscript.value.ConstantSupplier;
+import org.meteordev.starscript.value.NumberSupplier;
+import org.meteordev.starscript.value.StringSupplier;
 import org.meteordev.starscript.value.Value;
 import org.meteordev.starscript.value.ValueMap;
-
+import org.meteordev.starscript.value.ValuePath;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
+import java.util.function.IntSupplier;
 import java.util.function.Supplier;
 
 /** A VM (virtual machine) that can run compiled starscript code, {@link Script}. */
@@ -14,6 +28,21 @@ public class Starscript {
     private final ValueMap globals;
 
     private final Stack<Value> stack = new Stack<>();
+    private final StringBuilder concatSb = new StringBuilder();
+
+    private final RunStatus status = new RunStatus();
+    private final RenderResult sectionResult = new RenderResult();
+    private String errorPlaceholder;
+
+    private long instructionLimit;
+    private int outputLimit;
+    private long timeLimit;
+
+    /** Values fetched by {@link #renderAsync(Script, Executor)}, only set on the instance that runs the script. */
+    private Map<Supplier<Value>, Value> resolved;
+
+    /** Snapshots of the maps read by the current run. */
+    private final ValueMap.Pin pin = new ValueMap.Pin();
 
     public Starscript() {
         globals = new ValueMap();
@@ -24,99 +53,403 @@ public class Starscript {
         globals = parent.globals;
     }
 
-    /** Runs the script and fills the provided {@link StringBuilder}. Throws {@link StarscriptError} if a runtime error happens. */
-    public Section run(Script script, StringBuilder sb) {
+    /** Runs the script and writes the output into the provided result, reusing its buffers. Throws {@link StarscriptError} if a runtime error happens, unless an error placeholder is set. See {@link #setErrorPlaceholder(String)}. */
+    public RenderResult run(Script script, RenderResult result) {
+        // Pin the globals, nested maps are pinned when first read so the whole run sees the same variables
+        pin.begin();
+        ValueMap.Snapshot globals = pin.getSnapshot(this.globals);
+
         stack.clear();
+        status.reset();
 
-        sb.setLength(0);
+        result.reset();
+        StringBuilder sb = result.sb;
         int ip = 0;
+        int start = 0;
 
-        Section firstSection = null;
-        Section section = null;
-        int index = 0;
+        boolean limited = instructionLimit > 0 || outputLimit > 0 || timeLimit > 0;
+        long deadline = timeLimit > 0 ? System.nanoTime() + timeLimit : 0;
+        long executed = 0;
 
-        loop:
-        while (true) {
-            switch (Instruction.valueOf(script.code[ip++])) {
-                case Constant:          push(script.constants.get(script.code[ip++] & 0xFF)); break;
-                case Null:              push(Value.null_()); break;
-                case True:              push(Value.bool(true)); break;
-                case False:             push(Value.bool(false)); break;
-
-                case Add:               { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number(a.getNumber() + b.getNumber())); else if (a.isString()) push(Value.string(a.getString() + b.toString())); else error("Can only add 2 numbers or 1 string and other value."); break; }
-                case Subtract:          { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number(a.getNumber() - b.getNumber())); else error("Can only subtract 2 numbers."); break; }
-                case Multiply:          { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number(a.getNumber() * b.getNumber())); else error("Can only multiply 2 numbers."); break; }
-                case Divide:            { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number(a.getNumber() / b.getNumber())); else error("Can only divide 2 numbers."); break; }
-                case Modulo:            { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number(a.getNumber() % b.getNumber())); else error("Can only modulo 2 numbers."); break; }
-                case Power:             { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number(Math.pow(a.getNumber(), b.getNumber()))); else error("Can only power 2 numbers."); break; }
-
-                case BitwiseAnd:        { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number((long) a.getNumber() & (long) b.getNumber())); else error("This operation requires 2 numbers."); break; }
-                case BitwiseOr:         { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number((long) a.getNumber() | (long) b.getNumber())); else error("This operation requires 2 numbers."); break; }
-                case BitwiseXor:        { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number((long) a.getNumber() ^ (long) b.getNumber())); else error("This operation requires 2 numbers."); break; }
-                case LeftShift:         { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number((long) a.getNumber() << (long) b.getNumber())); else error("This operation requires 2 numbers."); break; }
-                case RightShift:        { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number((long) a.getNumber() >> (long) b.getNumber())); else error("This operation requires 2 numbers."); break; }
-                case UnsignedRightShift: { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number((long) a.getNumber() >>> (long) b.getNumber())); else error("This operation requires 2 numbers."); break; }
-
-                case AddConstant:       { Value b = script.constants.get(script.code[ip++] & 0xFF); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number(a.getNumber() + b.getNumber())); else if (a.isString()) push(Value.string(a.getString() + b.toString())); else error("Can only add 2 numbers or 1 string and other value."); break; }
-
-                case Pop:               pop(); break;
-                case Not:               push(Value.bool(!pop().isTruthy())); break;
-                case Negate:            { Value a = pop(); if (a.isNumber()) push(Value.number(-a.getNumber())); else error("This operation requires a number."); break; }
-                case BitwiseNot:        { Value a = pop(); if (a.isNumber()) push(Value.number(~((long) a.getNumber()))); else error("This operation requires a number."); break; }
-
-                case Equals:            push(Value.bool(pop().equals(pop()))); break;
-                case NotEquals:         push(Value.bool(!pop().equals(pop()))); break;
-                case Greater:           { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.bool(a.getNumber() > b.getNumber())); else error("This operation requires 2 numbers."); break; }
-                case GreaterEqual:      { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.bool(a.getNumber() >= b.getNumber())); else error("This operation requires 2 numbers."); break; }
-                case Less:              { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.bool(a.getNumber() < b.getNumber())); else error("This operation requires 2 numbers."); break; }
-                case LessEqual:         { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.bool(a.getNumber() <= b.getNumber())); else error("This operation requires 2 numbers."); break; }
-
-                case Variable:          { String name = script.constants.get(script.code[ip++] & 0xFF).getString(); Supplier<Value> s = globals.getRaw(name); push(s != null ? s.get() : Value.null_()); break; }
-                case Get:               { String name = script.constants.get(script.code[ip++] & 0xFF).getString(); Value v = pop(); if (!v.isMap()) { push(Value.null_()); break; } Supplier<Value> s = v.getMap().getRaw(name); push(s != null ? s.get() : Value.null_()); break; }
-                case Call:              { int argCount = script.code[ip++]; Value a = peek(argCount); if (a.isFunction()) { Value r = a.getFunction().run(this, argCount); pop(); push(r); } else error("Tried to call a %s, can only call functions.", a.type); break; }
-
-                case Jump:              { int jump = ((script.code[ip++] & 0xFF) << 8) | (script.code[ip++] & 0xFF); ip += jump; break; }
-                case JumpIfTrue:        { int jump = ((script.code[ip++] & 0xFF) << 8) | (script.code[ip++] & 0xFF); if (peek().isTruthy()) ip += jump; break; }
-                case JumpIfFalse:       { int jump = ((script.code[ip++] & 0xFF) << 8) | (script.code[ip++] & 0xFF); if (!peek().isTruthy()) ip += jump; break; }
-
-                case Section:           if (firstSection == null) { firstSection = new Section(index, sb.toString()); section = firstSection; } else { section.next = new Section(index, sb.toString()); section = section.next; } sb.setLength(0); index = script.code[ip++]; break;
-
-                case Append:            sb.append(pop().toString()); break;
-                case ConstantAppend:    sb.append(script.constants.get(script.code[ip++] & 0xFF).toString()); break;
-                case VariableAppend:    { Supplier<Value> s = globals.getRaw(script.constants.get(script.code[ip++] & 0xFF).getString()); sb.append((s == null ? Value.null_() : s.get()).toString()); break; }
-                case GetAppend:         { String name = script.constants.get(script.code[ip++] & 0xFF).getString(); Value v = pop(); if (!v.isMap()) { sb.append(Value.null_()); break; } Supplier<Value> s = v.getMap().getRaw(name); sb.append((s != null ? s.get() : Value.null_()).toString()); break; }
-                case CallAppend:        { int argCount = script.code[ip++]; Value a = peek(argCount); if (a.isFunction()) { Value r = a.getFunction().run(this, argCount); pop(); sb.append(r.toString()); } else error("Tried to call a %s, can only call functions.", a.type); break; }
-
-                case VariableGet:       {
-                    Value v;
-                    { String name = script.constants.get(script.code[ip++] & 0xFF).getString(); Supplier<Value> s = globals.getRaw(name); v = s != null ? s.get() : Value.null_(); } // Variable
-                    { String name = script.constants.get(script.code[ip++] & 0xFF).getString(); if (!v.isMap()) { push(Value.null_()); break; } Supplier<Value> s = v.getMap().getRaw(name); push(s != null ? s.get() : Value.null_()); } // Get
-                    break;
-                }
-                case VariableGetAppend: {
-                    Value v;
-                    { String name = script.constants.get(script.code[ip++] & 0xFF).getString(); Supplier<Value> s = globals.getRaw(name); v = s != null ? s.get() : Value.null_(); } // Variable
-                    { String name = script.constants.get(script.code[ip++] & 0xFF).getString(); if (!v.isMap()) { push(Value.null_()); break; } Supplier<Value> s = v.getMap().getRaw(name); v = s != null ? s.get() : Value.null_(); } // Get
-                    { sb.append(v.toString()); } // Append
-                    break;
+        try {
+            loop:
+            while (true) {
+                start = ip;
+
+                if (limited) {
+                    RunStatus.Limit limit = checkLimits(Instruction.valueOf(script.code[ip]), ++executed, sb.length(), deadline);
+                    if (limit != null) { status.stop(limit); break; }
                 }
 
-                case End:               break loop;
-                default:                throw new UnsupportedOperationException("Unknown instruction '" + Instruction.valueOf(script.code[ip]) + "'");
+                switch (Instruction.valueOf(script.code[ip++])) {
+                    case Constant:          push(script.constantPool.get(script.code[ip++] & 0xFF)); break;
+                    case Null:              push(Value.null_()); break;
+                    case True:              push(Value.bool(true)); break;
+                    case False:             push(Value.bool(false)); break;
+
+                    case Add:               { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number(a.getNumber() + b.getNumber())); else if (a.isString()) push(Value.string(a.getString() + b.toString())); else error(StarscriptError.Code.Type, "Can only add 2 numbers or 1 string and other value."); break; }
+                    case Subtract:          { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number(a.getNumber() - b.getNumber())); else error(StarscriptError.Code.Type, "Can only subtract 2 numbers."); break; }
+                    case Multiply:          { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number(a.getNumber() * b.getNumber())); else error(StarscriptError.Code.Type, "Can only multiply 2 numbers."); break; }
+                    case Divide:            { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number(a.getNumber() / b.getNumber())); else error(StarscriptError.Code.Type, "Can only divide 2 numbers."); break; }
+                    case Modulo:            { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number(a.getNumber() % b.getNumber())); else error(StarscriptError.Code.Type, "Can only modulo 2 numbers."); break; }
+                    case Power:             { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number(Math.pow(a.getNumber(), b.getNumber()))); else error(StarscriptError.Code.Type, "Can only power 2 numbers."); break; }
+
+                    case BitwiseAnd:        { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number((long) a.getNumber() & (long) b.getNumber())); else error(StarscriptError.Code.Type, "This operation requires 2 numbers."); break; }
+                    case BitwiseOr:         { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number((long) a.getNumber() | (long) b.getNumber())); else error(StarscriptError.Code.Type, "This operation requires 2 numbers."); break; }
+                    case BitwiseXor:        { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number((long) a.getNumber() ^ (long) b.getNumber())); else error(StarscriptError.Code.Type, "This operation requires 2 numbers."); break; }
+                    case LeftShift:         { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number((long) a.getNumber() << (long) b.getNumber())); else error(StarscriptError.Code.Type, "This operation requires 2 numbers."); break; }
+                    case RightShift:        { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number((long) a.getNumber() >> (long) b.getNumber())); else error(StarscriptError.Code.Type, "This operation requires 2 numbers."); break; }
+                    case UnsignedRightShift: { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number((long) a.getNumber() >>> (long) b.getNumber())); else error(StarscriptError.Code.Type, "This operation requires 2 numbers."); break; }
+
+                    case AddConstant:       { Value b = script.constantPool.get(script.code[ip++] & 0xFF); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.number(a.getNumber() + b.getNumber())); else if (a.isString()) push(Value.string(a.getString() + b.toString())); else error(StarscriptError.Code.Type, "Can only add 2 numbers or 1 string and other value."); break; }
+
+                    case Pop:               pop(); break;
+                    case Not:               push(Value.bool(!pop().isTruthy())); break;
+                    case Negate:            { Value a = pop(); if (a.isNumber()) push(Value.number(-a.getNumber())); else error(StarscriptError.Code.Type, "This operation requires a number."); break; }
+                    case BitwiseNot:        { Value a = pop(); if (a.isNumber()) push(Value.number(~((long) a.getNumber()))); else error(StarscriptError.Code.Type, "This operation requires a number."); break; }
+
+                    case Equals:            push(Value.bool(pop().equals(pop()))); break;
+                    case NotEquals:         push(Value.bool(!pop().equals(pop()))); break;
+                    case Greater:           { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.bool(a.getNumber() > b.getNumber())); else error(StarscriptError.Code.Type, "This operation requires 2 numbers."); break; }
+                    case GreaterEqual:      { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.bool(a.getNumber() >= b.getNumber())); else error(StarscriptError.Code.Type, "This operation requires 2 numbers."); break; }
+                    case Less:              { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.bool(a.getNumber() < b.getNumber())); else error(StarscriptError.Code.Type, "This operation requires 2 numbers."); break; }
+                    case LessEqual:         { Value b = pop(); Value a = pop(); if (a.isNumber() && b.isNumber()) push(Value.bool(a.getNumber() <= b.getNumber())); else error(StarscriptError.Code.Type, "This operation requires 2 numbers."); break; }
+
+                    case Variable:          { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); Supplier<Value> s = globals.getRaw(name); push(s != null ? get(s) : Value.null_()); break; }
+                    case Get:               { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); Value v = pop(); if (!v.isMap()) { push(Value.null_()); break; } Supplier<Value> s = pin.getSnapshot(v.getMap()).getRaw(name); push(s != null ? get(s) : Value.null_()); break; }
+                    case Index:             { Value i = pop(); Value v = pop(); push(index(v, i)); break; }
+                    case Call:              { int argCount = script.code[ip++]; Value a = peek(argCount); if (a.isFunction()) { Value r = call(a.getFunction(), argCount); pop(); push(r); } else error(StarscriptError.Code.NotCallable, "Tried to call a %s, can only call functions.", a.type); break; }
+
+                    case Jump:              { int jump = ((script.code[ip++] & 0xFF) << 8) | (script.code[ip++] & 0xFF); ip += jump; break; }
+                    case JumpIfTrue:        { int jump = ((script.code[ip++] & 0xFF) << 8) | (script.code[ip++] & 0xFF); if (peek().isTruthy()) ip += jump; break; }
+                    case JumpIfFalse:       { int jump = ((script.code[ip++] & 0xFF) << 8) | (script.code[ip++] & 0xFF); if (!peek().isTruthy()) ip += jump; break; }
+
+                    case Section:           result.beginSection(script.code[ip++]); break;
+
+                    case Append:            pop().appendTo(sb); break;
+                    case ConstantAppend:    script.constantPool.get(script.code[ip++] & 0xFF).appendTo(sb); break;
+                    case VariableAppend:    { Supplier<Value> s = globals.getRaw(script.constantPool.get(script.code[ip++] & 0xFF).getString()); append(s, sb); break; }
+                    case GetAppend:         { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); Value v = pop(); if (!v.isMap()) { Value.null_().appendTo(sb); break; } append(pin.getSnapshot(v.getMap()).getRaw(name), sb); break; }
+                    case CallAppend:        { int argCount = script.code[ip++]; Value a = peek(argCount); if (a.isFunction()) { callAppend(a.getFunction(), argCount, sb); pop(); } else error(StarscriptError.Code.NotCallable, "Tried to call a %s, can only call functions.", a.type); break; }
+
+                    case VariableGet:       {
+                        Value v;
+                        { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); Supplier<Value> s = globals.getRaw(name); v = s != null ? get(s) : Value.null_(); } // Variable
+                        { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); if (!v.isMap()) { push(Value.null_()); break; } Supplier<Value> s = pin.getSnapshot(v.getMap()).getRaw(name); push(s != null ? get(s) : Value.null_()); } // Get
+                        break;
+                    }
+                    case VariableGetAppend: {
+                        Value v;
+                        { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); Supplier<Value> s = globals.getRaw(name); v = s != null ? get(s) : Value.null_(); } // Variable
+                        { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); if (!v.isMap()) { Value.null_().appendTo(sb); break; } append(pin.getSnapshot(v.getMap()).getRaw(name), sb); } // GetAppend
+                        break;
+                    }
+
+                    case VariablePath:      {
+                        int count = script.code[ip++] & 0xFF;
+                        Value v;
+                        { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); Supplier<Value> s = globals.getRaw(name); v = s != null ? get(s) : Value.null_(); } // Variable
+                        for (int i = 0; i < count; i++) { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); if (!v.isMap()) { v = Value.null_(); continue; } Supplier<Value> s = pin.getSnapshot(v.getMap()).getRaw(name); v = s != null ? get(s) : Value.null_(); } // Get
+                        push(v);
+                        break;
+                    }
+                    case VariablePathAppend: {
+                        int count = script.code[ip++] & 0xFF;
+                        Value v;
+                        { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); Supplier<Value> s = globals.getRaw(name); v = s != null ? get(s) : Value.null_(); } // Variable
+                        for (int i = 0; i < count - 1; i++) { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); if (!v.isMap()) { v = Value.null_(); continue; } Supplier<Value> s = pin.getSnapshot(v.getMap()).getRaw(name); v = s != null ? get(s) : Value.null_(); } // Get
+                        { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); if (!v.isMap()) { Value.null_().appendTo(sb); break; } append(pin.getSnapshot(v.getMap()).getRaw(name), sb); } // GetAppend
+                        break;
+                    }
+
+                    case VariableCall:      {
+                        int argCount = script.code[ip++];
+                        Value a;
+                        { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); Supplier<Value> s = globals.getRaw(name); a = s != null ? get(s) : Value.null_(); } // Variable
+                        { if (a.isFunction()) push(call(a.getFunction(), argCount)); else error(StarscriptError.Code.NotCallable, "Tried to call a %s, can only call functions.", a.type); } // Call
+                        break;
+                    }
+                    case VariableCallAppend: {
+                        int argCount = script.code[ip++];
+                        Value a;
+                        { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); Supplier<Value> s = globals.getRaw(name); a = s != null ? get(s) : Value.null_(); } // Variable
+                        { if (a.isFunction()) callAppend(a.getFunction(), argCount, sb); else error(StarscriptError.Code.NotCallable, "Tried to call a %s, can only call functions.", a.type); } // CallAppend
+                        break;
+                    }
+                    case VariableCallVariable: {
+                        Value a;
+                        { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); Supplier<Value> s = globals.getRaw(name); a = s != null ? get(s) : Value.null_(); } // Variable
+                        { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); Supplier<Value> s = globals.getRaw(name); push(s != null ? get(s) : Value.null_()); } // Variable
+                        { if (a.isFunction()) push(call(a.getFunction(), 1)); else error(StarscriptError.Code.NotCallable, "Tried to call a %s, can only call functions.", a.type); } // Call
+                        break;
+                    }
+                    case VariableCallVariableAppend: {
+                        Value a;
+                        { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); Supplier<Value> s = globals.getRaw(name); a = s != null ? get(s) : Value.null_(); } // Variable
+                        { String name = script.constantPool.get(script.code[ip++] & 0xFF).getString(); Supplier<Value> s = globals.getRaw(name); push(s != null ? get(s) : Value.null_()); } // Variable
+                        { if (a.isFunction()) callAppend(a.getFunction(), 1, sb); else error(StarscriptError.Code.NotCallable, "Tried to call a %s, can only call functions.", a.type); } // CallAppend
+                        break;
+                    }
+
+                    case ConditionalConstant: { Value t = script.constantPool.get(script.code[ip++] & 0xFF); Value f = script.constantPool.get(script.code[ip++] & 0xFF); push(pop().isTruthy() ? t : f); break; }
+                    case ConditionalConstantAppend: { Value t = script.constantPool.get(script.code[ip++] & 0xFF); Value f = script.constantPool.get(script.code[ip++] & 0xFF); (pop().isTruthy() ? t : f).appendTo(sb); break; }
+
+                    case Concat:            { int count = script.code[ip++] & 0xFF; concatSb.setLength(0); for (int i = count - 1; i >= 0; i--) peek(i).appendTo(concatSb); for (int i = 0; i < count; i++) pop(); push(Value.string(concatSb.toString())); break; }
+                    case ConcatAppend:      { int count = script.code[ip++] & 0xFF; for (int i = count - 1; i >= 0; i--) peek(i).appendTo(sb); for (int i = 0; i < count; i++) pop(); break; }
+
+                    case End:               break loop;
+                    default:                throw new UnsupportedOperationException("Unknown instruction '" + Instruction.valueOf(script.code[ip]) + "'");
+                }
             }
         }
+        catch (StarscriptError e) {
+            status.fail(e, start);
+
+            if (errorPlaceholder == null) throw e;
+            sb.append(errorPlaceholder);
+        }
 
-        if (firstSection != null) {
-            section.next = new Section(index, sb.toString());
-            return firstSection;
+        // Anything appended after the last check, sections can only start before the limit
+        if (outputLimit > 0 && sb.length() > outputLimit) {
+            sb.setLength(outputLimit);
+            status.stop(RunStatus.Limit.Output);
         }
 
-        return new Section(index, sb.toString());
+        result.finish();
+        return result;
     }
 
-    /** Runs the script. Throws {@link StarscriptError} if a runtime error happens. */
+    /** Runs the script and fills the provided {@link StringBuilder} with the text of the last section. Throws {@link StarscriptError} if a runtime error happens, unless an error placeholder is set. See {@link #setErrorPlaceholder(String)}. */
+    public Section run(Script script, StringBuilder sb) {
+        RenderResult result = run(script, sectionResult);
+
+        sb.setLength(0);
+        result.getSection(result.getSectionCount() - 1).appendTo(sb);
+
+        return result.toSection();
+    }
+
+    /** Runs the script. Throws {@link StarscriptError} if a runtime error happens, unless an error placeholder is set. See {@link #setErrorPlaceholder(String)}. */
     public Section run(Script script) {
-        return run(script, new StringBuilder());
+        return run(script, sectionResult).toSection();
+    }
+
+    /** Returns the outcome of the last run. The returned object is reused and updated by every run. */
+    public RunStatus getStatus() {
+        return status;
+    }
+
+    /** When not null runtime errors do not throw, the placeholder is appended to the output and the run stops. The error is available from {@link #getStatus()}. */
+    public void setErrorPlaceholder(String errorPlaceholder) {
+        this.errorPlaceholder = errorPlaceholder;
+    }
+
+    public String getErrorPlaceholder() {
+        return errorPlaceholder;
+    }
+
+    // Limits
+
+    /** Stops runs after executing the provided number of instructions, 0 disables the limit. */
+    public void setInstructionLimit(long instructionLimit) {
+        this.instructionLimit = instructionLimit;
+    }
+
+    public long getInstructionLimit() {
+        return instructionLimit;
+    }
+
+    /** Stops runs once the output of all sections gets longer than the provided number of characters and truncates it, 0 disables the limit. */
+    public void setOutputLimit(int outputLimit) {
+        this.outputLimit = outputLimit;
+    }
+
+    public int getOutputLimit() {
+        return outputLimit;
+    }
+
+    /** Stops runs that take longer than the provided number of nanoseconds, 0 disables the limit. The time is only checked before calls and jumps. */
+    public void setTimeLimit(long timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    public long getTimeLimit() {
+        return timeLimit;
+    }
+
+    private RunStatus.Limit checkLimits(Instruction insn, long executed, int output, long deadline) {
+        if (instructionLimit > 0 && executed > instructionLimit) return RunStatus.Limit.Instructions;
+        if (outputLimit > 0 && output > outputLimit) return RunStatus.Limit.Output;
+
+        if (deadline != 0) {
+            switch (insn) {
+                case Call:
+                case CallAppend:
+                case VariableCall:
+                case VariableCallAppend:
+                case VariableCallVariable:
+                case VariableCallVariableAppend:
+                case Jump:
+                case JumpIfTrue:
+                case JumpIfFalse:
+                    if (System.nanoTime() - deadline > 0) return RunStatus.Limit.Time;
+            }
+        }
+
+        return null;
+    }
+
+    /** Appends the value of a variable, null if the supplier is null. Numbers and strings from primitive suppliers are appended without creating a value. */
+    private void append(Supplier<Value> supplier, StringBuilder sb) {
+        if (supplier instanceof NumberSupplier) Value.appendNumber(sb, ((NumberSupplier) supplier).getNumber());
+        else if (supplier instanceof StringSupplier) sb.append(((StringSupplier) supplier).getString());
+        else (supplier != null ? get(supplier) : Value.null_()).appendTo(sb);
+    }
+
+    /** Returns the value of the supplier, async suppliers use the value fetched by {@link #renderAsync(Script, Executor)} if there is one. */
+    private Value get(Supplier<Value> supplier) {
+        if (resolved != null) {
+            Value value = resolved.get(supplier);
+            if (value != null) return value;
+        }
+
+        return supplier.get();
+    }
+
+    // Async
+
+    /** Same as {@link #renderAsync(Script, Executor)} using virtual threads when available, otherwise a cached pool of daemon threads. */
+    public CompletableFuture<Section> renderAsync(Script script) {
+        return renderAsync(script, AsyncExecutor.INSTANCE);
+    }
+
+    /**
+     * Fetches all {@link AsyncSupplier} variables referenced by the script concurrently and then runs the script with the fetched values. <br><br>
+     *
+     * The script runs on the thread completing the last fetch, using a new instance with the same globals so this instance can be used in the meantime. Async suppliers that can't be found from the code, for example values returned by functions or inside maps that are not constant, are waited on while running.
+     */
+    public CompletableFuture<Section> renderAsync(Script script, Executor executor) {
+        Map<Supplier<Value>, CompletableFuture<Value>> futures = new IdentityHashMap<>();
+
+        for (String reference : script.getReferences()) {
+            fetchAsync(globals, reference, executor, futures);
+        }
+
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).thenApply(unused -> {
+            Starscript ss = new Starscript(this);
+            ss.errorPlaceholder = errorPlaceholder;
+            ss.instructionLimit = instructionLimit;
+            ss.outputLimit = outputLimit;
+            ss.timeLimit = timeLimit;
+            ss.resolved = new IdentityHashMap<>(futures.size());
+
+            for (Map.Entry<Supplier<Value>, CompletableFuture<Value>> entry : futures.entrySet()) {
+                ss.resolved.put(entry.getKey(), entry.getValue().join());
+            }
+
+            return ss.run(script);
+        });
+    }
+
+    private static void fetchAsync(ValueMap globals, String path, Executor executor, Map<Supplier<Value>, CompletableFuture<Value>> futures) {
+        ValueMap map = null;
+        int start = 0;
+
+        while (true) {
+            int dotI = path.indexOf('.', start);
+            String name = dotI >= 0 ? path.substring(start, dotI) : path.substring(start);
+
+            Supplier<Value> supplier = (map == null ? globals : map).getRaw(name);
+
+            if (supplier instanceof AsyncSupplier) {
+                if (!futures.containsKey(supplier)) futures.put(supplier, ((AsyncSupplier) supplier).getAsync(executor));
+                return;
+            }
+
+            // Only constant maps are followed, other suppliers are not called before running
+            if (dotI < 0 || !(supplier instanceof ConstantSupplier)) return;
+
+            Value value = supplier.get();
+            if (!value.isMap()) return;
+
+            map = value.getMap();
+            start = dotI + 1;
+        }
+    }
+
+    private static class AsyncExecutor {
+        public static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            try {
+                // Java 21 and newer
+                return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            }
+            catch (ReflectiveOperationException e) {
+                return Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "Starscript Async");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+    }
+
+    // Function calls
+
+    /** Calls the function with arguments that are on the stack. Typed functions are called directly when the argument types match. */
+    private Value call(SFunction function, int argCount) {
+        if (argCount == 1) {
+            if (function instanceof NumberFn1 && peek().isNumber()) return Value.number(((NumberFn1) function).apply(pop().getNumber()));
+            if (function instanceof StringFn1 && peek().isString()) return Value.string(((StringFn1) function).apply(pop().getString()));
+        }
+        else if (argCount == 2 && function instanceof NumberFn2 && peek().isNumber() && peek(1).isNumber()) {
+            double b = pop().getNumber();
+            double a = pop().getNumber();
+
+            return Value.number(((NumberFn2) function).apply(a, b));
+        }
+
+        return function.run(this, argCount);
+    }
+
+    /** Calls the function with arguments that are on the stack and appends the result. Typed functions returning a number do not box the result. */
+    private void callAppend(SFunction function, int argCount, StringBuilder sb) {
+        if (function instanceof SAppendFunction) {
+            ((SAppendFunction) function).append(this, argCount, sb);
+            return;
+        }
+
+        if (argCount == 1) {
+            if (function instanceof NumberFn1 && peek().isNumber()) { Value.appendNumber(sb, ((NumberFn1) function).apply(pop().getNumber())); return; }
+            if (function instanceof StringFn1 && peek().isString()) { sb.append(((StringFn1) function).apply(pop().getString())); return; }
+        }
+        else if (argCount == 2 && function instanceof NumberFn2 && peek().isNumber() && peek(1).isNumber()) {
+            double b = pop().getNumber();
+            double a = pop().getNumber();
+
+            Value.appendNumber(sb, ((NumberFn2) function).apply(a, b));
+            return;
+        }
+
+        function.run(this, argCount).appendTo(sb);
+    }
+
+    /** Returns the element of a list at a number index or the variable of a map at a string index, null for anything else. */
+    private Value index(Value object, Value index) {
+        if (object.isList() && index.isNumber()) {
+            Value[] values = object.getList();
+            double i = index.getNumber();
+
+            return i >= 0 && i < values.length ? values[(int) i] : Value.null_();
+        }
+
+        if (object.isMap() && index.isString()) {
+            Supplier<Value> s = pin.getSnapshot(object.getMap()).getRaw(index.getString());
+            return s != null ? get(s) : Value.null_();
+        }
+
+        return Value.null_();
     }
 
     // Stack manipulation
@@ -146,36 +479,40 @@ public class Starscript {
     /** Pops a value from the stack and returns it as boolean. Calls {@link Starscript#error(String, Object...)} with the provided message if the value is not boolean. */
     public boolean popBool(String errorMsg) {
         Value a = pop();
-        if (!a.isBool()) error(errorMsg);
+        if (!a.isBool()) error(StarscriptError.Code.Argument, errorMsg);
         return a.getBool();
     }
 
     /** Pops a value from the stack and returns it as double. Calls {@link Starscript#error(String, Object...)} with the provided message if the value is not double. */
     public double popNumber(String errorMsg) {
         Value a = pop();
-        if (!a.isNumber()) error(errorMsg);
+        if (!a.isNumber()) error(StarscriptError.Code.Argument, errorMsg);
         return a.getNumber();
     }
 
     /** Pops a value from the stack and returns it as String. Calls {@link Starscript#error(String, Object...)} with the provided message if the value is not String. */
     public String popString(String errorMsg) {
         Value a = pop();
-        if (!a.isString()) error(errorMsg);
+        if (!a.isString()) error(StarscriptError.Code.Argument, errorMsg);
         return a.getString();
     }
 
     /** Pops a value from the stack and returns it as Object. Calls {@link Starscript#error(String, Object...)} with the provided message if the value is not Object. */
     public Object popObject(String errorMsg) {
         Value a = pop();
-        if (!a.isObject()) error(errorMsg);
+        if (!a.isObject()) error(StarscriptError.Code.Argument, errorMsg);
         return a.getObject();
     }
 
     // Helpers
 
-    /** Throws a {@link StarscriptError}. */
+    /** Throws a {@link StarscriptError}, the message is formatted using {@link String#format(String, Object...)} only when it is needed. */
     public void error(String format, Object... args) {
-        throw new StarscriptError(String.format(format, args));
+        throw new StarscriptError(StarscriptError.Code.Function, format, args);
+    }
+
+    private void error(StarscriptError.Code code, String format, Object... args) {
+        throw new StarscriptError(code, format, args);
     }
 
     // Globals
@@ -205,11 +542,41 @@ public class Starscript {
         return globals.set(name, string);
     }
 
+    /** Sets a number variable supplier for the provided name, the number is appended to the output without creating a value. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+    public ValueMap setNumber(String name, DoubleSupplier supplier) {
+        return globals.setNumber(name, supplier);
+    }
+
+    /** Sets a number variable supplier for the provided name, the number is appended to the output without creating a value. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+    public ValueMap setNumber(String name, IntSupplier supplier) {
+        return globals.setNumber(name, supplier);
+    }
+
+    /** Sets a boolean variable supplier for the provided name, returns the shared true and false values so no value is created. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+    public ValueMap setBool(String name, BooleanSupplier supplier) {
+        return globals.setBool(name, supplier);
+    }
+
+    /** Sets a string variable supplier for the provided name, the string is appended to the output without creating a value. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+    public ValueMap setString(String name, Supplier<String> supplier) {
+        return globals.setString(name, supplier);
+    }
+
     /** Sets a function variable supplier that always returns the same value for the provided name. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
     public ValueMap set(String name, SFunction function) {
         return globals.set(name, function);
     }
 
+    /** Sets a typed function variable supplier that always returns the same value for the provided name. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+    public ValueMap setNumberFunction(String name, NumberFn1 function) {
+        return globals.setNumberFunction(name, function);
+    }
+
+    /** Sets a typed function variable supplier that always returns the same value for the provided name. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+    public ValueMap setStringFunction(String name, StringFn1 function) {
+        return globals.setStringFunction(name, function);
+    }
+
     /** Sets a map variable supplier that always returns the same value for the provided name. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
     public ValueMap set(String name, ValueMap map) {
         return globals.set(name, map);
@@ -220,6 +587,36 @@ public class Starscript {
         return globals.set(name, object);
     }
 
+    /** Sets a variable supplier for the provided path. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+    public ValueMap set(ValuePath path, Supplier<Value> supplier) {
+        return globals.set(path, supplier);
+    }
+
+    /** Sets a variable supplier that always returns the same value for the provided path. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+    public ValueMap set(ValuePath path, Value value) {
+        return globals.set(path, value);
+    }
+
+    /** Sets a boolean variable supplier that always returns the same value for the provided path. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+    public ValueMap set(ValuePath path, boolean bool) {
+        return globals.set(path, bool);
+    }
+
+    /** Sets a number variable supplier that always returns the same value for the provided path. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+    public ValueMap set(ValuePath path, double number) {
+        return globals.set(path, number);
+    }
+
+    /** Sets a string variable supplier that always returns the same value for the provided path. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+    public ValueMap set(ValuePath path, String string) {
+        return globals.set(path, string);
+    }
+
+    /** Applies multiple changes to the globals at once. <br><br> See {@link ValueMap#update(Consumer)}. */
+    public void update(Consumer<ValueMap.Transaction> action) {
+        globals.update(action);
+    }
+
     /** Removes all values from the globals. */
     public void clear() {
         globals.clear();
@@ -230,6 +627,11 @@ public class Starscript {
         return globals.remove(name);
     }
 
+    /** Removes a single value with the specified path from the globals and returns the removed value. <br><br> See {@link ValueMap#remove(String)} for dot notation. */
+    public Supplier<Value> remove(ValuePath path) {
+        return globals.remove(path);
+    }
+
     /** Returns the underlying {@link ValueMap} for global variables. */
     public ValueMap getGlobals() {
         return globals;
@@ -0,0 +1,253 @@
+package org.meteordev.starscript;
+
+import org.meteordev.starscript.compiler.Compiler;
+import org.meteordev.starscript.utils.ChangeListener;
+import org.meteordev.starscript.utils.Error;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Compiled scripts loaded from the files inside a directory. <br><br>
+ *
+ * Every file is compiled once by {@link #load()}. After {@link #watch()} is called a background thread recompiles files when they change and removes them when they are deleted, files that did not change are not compiled again. Compiled scripts are replaced atomically so {@link #get(String)} never blocks and always returns a fully compiled script. When a changed file has errors the previously compiled script is kept and the errors are available from {@link Entry#errors}. Exceptions thrown while handling a change, for example by a listener, are passed to the uncaught exception handler of the watcher thread and the watcher keeps running. <br><br>
+ *
+ * Files are named by their file name, subdirectories are not loaded.
+ */
+public class TemplateRepository implements Closeable {
+    private final Path directory;
+    private final String extension;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    private WatchService watchService;
+    private Thread thread;
+
+    /** Creates a repository of files in the directory whose name ends with the extension, an empty extension accepts all files. */
+    public TemplateRepository(Path directory, String extension) {
+        this.directory = directory;
+        this.extension = extension;
+    }
+
+    public TemplateRepository(Path directory) {
+        this(directory, "");
+    }
+
+    /** Compiles all files in the directory that were not compiled yet or changed since and removes entries whose file no longer exists. */
+    public void load() throws IOException {
+        List<String> changed = new ArrayList<>();
+
+        try {
+            synchronized (this) {
+                Set<String> names = new HashSet<>();
+
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                    for (Path path : stream) {
+                        if (!accepts(path)) continue;
+
+                        String name = path.getFileName().toString();
+                        names.add(name);
+                        if (update(path)) changed.add(name);
+                    }
+                }
+
+                for (String name : new ArrayList<>(entries.keySet())) {
+                    if (!names.contains(name) && remove(name)) changed.add(name);
+                }
+            }
+        }
+        finally {
+            // Listeners are notified after releasing the lock so they can call back into the repository from any thread
+            for (String name : changed) notifyListeners(name);
+        }
+    }
+
+    /** Starts a background thread that recompiles files when they change. Does nothing if the directory is already being watched. */
+    public synchronized void watch() throws IOException {
+        if (thread != null) return;
+
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+
+        thread = new Thread(this::watchLoop, "Starscript Template Watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watchLoop() {
+        WatchService watchService = this.watchService;
+
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    try {
+                        if (event.kind() == OVERFLOW) {
+                            load();
+                            continue;
+                        }
+
+                        Path path = directory.resolve((Path) event.context());
+                        if (!accepts(path) && event.kind() != ENTRY_DELETE) continue;
+
+                        String name = path.getFileName().toString();
+                        boolean changed;
+
+                        synchronized (this) {
+                            changed = event.kind() == ENTRY_DELETE ? remove(name) : update(path);
+                        }
+
+                        if (changed) notifyListeners(name);
+                    }
+                    catch (IOException ignored) {
+                        // The file is probably still being written, it will be reloaded on the next event
+                    }
+                    catch (RuntimeException e) {
+                        // Thrown by a listener or the compiler, report it without stopping the watcher
+                        Thread thread = Thread.currentThread();
+                        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                    }
+                }
+
+                if (!key.reset()) break;
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException ignored) {}
+    }
+
+    private boolean accepts(Path path) {
+        return path.getFileName().toString().endsWith(extension) && Files.isRegularFile(path);
+    }
+
+    /** Compiles the file if its content changed and returns true if it did. */
+    private boolean update(Path path) throws IOException {
+        String name = path.getFileName().toString();
+
+        long start = System.nanoTime();
+        byte[] bytes = Files.readAllBytes(path);
+        long loadNanos = System.nanoTime() - start;
+
+        // Modification events are often reported more than once, the modification time alone can miss changes made within its resolution
+        byte[] hash = hash(bytes);
+        Entry previous = entries.get(name);
+        if (previous != null && MessageDigest.isEqual(previous.hash, hash)) return false;
+
+        String source = new String(bytes, StandardCharsets.UTF_8);
+
+        start = System.nanoTime();
+        Compiler.Compiled compiled = Compiler.compileSource(source);
+        Script script = compiled.script;
+        long compileNanos = System.nanoTime() - start;
+
+        List<Error> errors = Collections.unmodifiableList(compiled.errors);
+        if (script == null && previous != null) script = previous.script;
+
+        entries.put(name, new Entry(name, script, errors, hash, loadNanos, compileNanos));
+        return true;
+    }
+
+    private boolean remove(String name) {
+        return entries.remove(name) != null;
+    }
+
+    private static byte[] hash(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        }
+        catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Returns the compiled script of the file with the provided name or null if it does not exist or never compiled without errors. */
+    public Script get(String name) {
+        Entry entry = entries.get(name);
+        return entry != null ? entry.script : null;
+    }
+
+    /** Returns the entry of the file with the provided name or null if it does not exist. */
+    public Entry getEntry(String name) {
+        return entries.get(name);
+    }
+
+    /** Returns the names of all loaded files. */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /** Returns the directory the files are loaded from. */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // Listeners
+
+    /** Adds a listener that is called with the file name after a file was compiled or removed. Called from the watcher thread while watching, without holding a lock on the repository. */
+    public void addListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void notifyListeners(String name) {
+        for (ChangeListener listener : listeners) listener.onChange(name);
+    }
+
+    /** Stops watching the directory. */
+    @Override
+    public synchronized void close() throws IOException {
+        if (thread == null) return;
+
+        watchService.close();
+        thread.interrupt();
+
+        watchService = null;
+        thread = null;
+    }
+
+    // Entry
+
+    /** Compiled file, replaced with a new instance every time the file is compiled. */
+    public static class Entry {
+        public final String name;
+        /** The last script that compiled without errors, null if there was none. */
+        public final Script script;
+        /** Errors of the last compilation, the script is from an older version of the file if not empty. */
+        public final List<Error> errors;
+
+        private final byte[] hash;
+
+        /** Time it took to read the file. */
+        public final long loadNanos;
+        /** Time it took to parse and compile the file. */
+        public final long compileNanos;
+
+        private Entry(String name, Script script, List<Error> errors, byte[] hash, long loadNanos, long compileNanos) {
+            this.name = name;
+            this.script = script;
+            this.errors = errors;
+            this.hash = hash;
+            this.loadNanos = loadNanos;
+            this.compileNanos = compileNanos;
+        }
+
+        /** Returns true if the last compilation had errors. */
+        public boolean hasErrors() {
+            return !errors.isEmpty();
+        }
+    }
+}
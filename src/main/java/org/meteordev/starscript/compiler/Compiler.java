@@ -3,8 +3,15 @@ package org.meteordev.starscript.compiler;
 import org.meteordev.starscript.Instruction;
 import org.meteordev.starscript.Script;
 import org.meteordev.starscript.Starscript;
+import org.meteordev.starscript.utils.Error;
 import org.meteordev.starscript.value.Value;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 /** Compiler that produces compiled starscript code from {@link Parser.Result}. */
 public class Compiler implements Expr.Visitor {
     private final Script script = new Script();
@@ -15,10 +22,12 @@ public class Compiler implements Expr.Visitor {
     private boolean variableAppend;
     private boolean getAppend;
     private boolean callAppend;
+    private boolean conditionalAppend;
+    private boolean concatAppend;
 
     private Compiler() {}
 
-    /** Produces compiled {@link Script} from {@link Parser.Result} that can be run inside {@link Starscript}. */
+    /** Produces compiled {@link Script} from {@link Parser.Result} that can be run inside {@link Starscript}. Throws {@link IllegalStateException} if the script would need more than {@link Script#MAX_CONSTANTS} different constants. */
     public static Script compile(Parser.Result result) {
         Compiler compiler = new Compiler();
 
@@ -28,6 +37,108 @@ public class Compiler implements Expr.Visitor {
         return compiler.script;
     }
 
+    /** Parses and compiles the source. Unlike {@link #compile(Parser.Result)} a source that needs more than {@link Script#MAX_CONSTANTS} constants is reported as an error instead of thrown. */
+    public static Compiled compileSource(String source) {
+        return compile(Parser.parse(source), source);
+    }
+
+    private static Compiled compile(Parser.Result result, String source) {
+        if (result.hasErrors()) return new Compiled(null, result.errors);
+
+        Compiler compiler = new Compiler();
+
+        for (Expr expr : result.exprs) {
+            try {
+                compiler.compile(expr);
+            } catch (IllegalStateException e) {
+                // The constant pool is full, report it at the expression that did not fit
+                result.errors.add(error(source, expr, e.getMessage()));
+                return new Compiled(null, result.errors);
+            }
+        }
+
+        compiler.script.write(Instruction.End);
+        return new Compiled(compiler.script, result.errors);
+    }
+
+    private static Error error(String source, Expr expr, String message) {
+        int line = 1;
+        for (int i = 0; i < expr.start; i++) {
+            if (source.charAt(i) == '\n') line++;
+        }
+
+        return new Error(line, expr.start, expr.start < source.length() ? source.charAt(expr.start) : '\0', message, expr);
+    }
+
+    // Bulk compilation
+
+    /** Parses and compiles all sources in parallel on the common {@link ForkJoinPool}. The results are in the same order as the sources, a source that fails to compile only has errors in its own result. */
+    public static List<Compiled> compileAll(Collection<String> sources) {
+        return compileAll(sources, ForkJoinPool.commonPool());
+    }
+
+    /** Parses and compiles all sources in parallel on the provided pool. The results are in the same order as the sources, a source that fails to compile only has errors in its own result. */
+    public static List<Compiled> compileAll(Collection<String> sources, ForkJoinPool pool) {
+        String[] array = sources.toArray(new String[0]);
+        Compiled[] compiled = new Compiled[array.length];
+
+        // Every worker thread reuses a single parser and lexer
+        ThreadLocal<Parser> parsers = ThreadLocal.withInitial(Parser::reusable);
+
+        pool.invoke(new CompileTask(array, compiled, parsers, 0, array.length));
+        return Arrays.asList(compiled);
+    }
+
+    @SuppressWarnings("serial") // Tasks are never serialized
+    private static class CompileTask extends RecursiveAction {
+        private static final int THRESHOLD = 32;
+
+        private final String[] sources;
+        private final Compiled[] compiled;
+        private final ThreadLocal<Parser> parsers;
+        private final int start, end;
+
+        private CompileTask(String[] sources, Compiled[] compiled, ThreadLocal<Parser> parsers, int start, int end) {
+            this.sources = sources;
+            this.compiled = compiled;
+            this.parsers = parsers;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > THRESHOLD) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new CompileTask(sources, compiled, parsers, start, middle), new CompileTask(sources, compiled, parsers, middle, end));
+                return;
+            }
+
+            Parser parser = parsers.get();
+
+            for (int i = start; i < end; i++) {
+                compiled[i] = compile(parser.parse_(sources[i]), sources[i]);
+            }
+        }
+    }
+
+    /** Output of {@link #compileAll(Collection)} and {@link #compileSource(String)} for a single source. */
+    public static class Compiled {
+        /** The compiled script or null if the source has errors. */
+        public final Script script;
+        public final List<Error> errors;
+
+        public Compiled(Script script, List<Error> errors) {
+            this.script = script;
+            this.errors = errors;
+        }
+
+        /** Helper method that returns true if there was 1 or more errors. */
+        public boolean hasErrors() {
+            return !errors.isEmpty();
+        }
+    }
+
     // Expressions
 
     @Override
@@ -58,15 +169,19 @@ public class Compiler implements Expr.Visitor {
         else if (expr.getExpr() instanceof Expr.Variable) variableAppend = true;
         else if (expr.getExpr() instanceof Expr.Get) getAppend = true;
         else if (expr.getExpr() instanceof Expr.Call) callAppend = true;
+        else if (isConstantConditional(expr.getExpr())) conditionalAppend = true;
+        else if (getConcatLength(expr.getExpr(), 2) > 0) concatAppend = true;
 
         compile(expr.getExpr());
 
-        if (!constantAppend && !variableAppend && !getAppend && !callAppend) script.write(Instruction.Append);
+        if (!constantAppend && !variableAppend && !getAppend && !callAppend && !conditionalAppend && !concatAppend) script.write(Instruction.Append);
         else {
             constantAppend = false;
             variableAppend = false;
             getAppend = false;
             callAppend = false;
+            conditionalAppend = false;
+            concatAppend = false;
         }
 
         blockDepth--;
@@ -79,6 +194,20 @@ public class Compiler implements Expr.Visitor {
 
     @Override
     public void visitBinary(Expr.Binary expr) {
+        int concatLength = getConcatLength(expr, concatAppend ? 2 : 3);
+
+        if (concatLength > 0) {
+            // String concatenation chain, eg. 'HP: ' + hp + '/' + maxHp
+            boolean prevConcatAppend = concatAppend;
+            concatAppend = false;
+
+            compileConcatOperands(expr);
+
+            concatAppend = prevConcatAppend;
+            script.write(concatAppend ? Instruction.ConcatAppend : Instruction.Concat, concatLength);
+            return;
+        }
+
         compile(expr.getLeft());
 
         if (expr.op == Token.Plus && (expr.getRight() instanceof Expr.String || expr.getRight() instanceof Expr.Number)) {
@@ -127,6 +256,15 @@ public class Compiler implements Expr.Visitor {
 
     @Override
     public void visitGet(Expr.Get expr) {
+        int pathLength = getPathLength(expr);
+
+        if (pathLength > 1) {
+            // Deep path with a variable root, eg. 'a.b.c.d'
+            script.write(getAppend ? Instruction.VariablePathAppend : Instruction.VariablePath, pathLength);
+            writePath(expr);
+            return;
+        }
+
         boolean prevGetAppend = getAppend;
         getAppend = false;
 
@@ -142,8 +280,21 @@ public class Compiler implements Expr.Visitor {
         else script.write(getAppend ? Instruction.GetAppend : Instruction.Get, Value.string(expr.name));
     }
 
+    @Override
+    public void visitIndex(Expr.Index expr) {
+        compile(expr.getObject());
+        compile(expr.getIndex());
+
+        script.write(Instruction.Index);
+    }
+
     @Override
     public void visitCall(Expr.Call expr) {
+        if (expr.getCallee() instanceof Expr.Variable && canLookUpCalleeLast(expr)) {
+            visitVariableCall(expr, ((Expr.Variable) expr.getCallee()).name);
+            return;
+        }
+
         boolean prevCallAppend = callAppend;
         compile(expr.getCallee());
 
@@ -154,6 +305,24 @@ public class Compiler implements Expr.Visitor {
         script.write(callAppend ? Instruction.CallAppend : Instruction.Call, expr.getArgCount());
     }
 
+    private void visitVariableCall(Expr.Call expr, String name) {
+        // Call with a single variable argument, eg. 'round(fps)'
+        if (expr.getArgCount() == 1 && expr.getArg(0) instanceof Expr.Variable) {
+            script.write(callAppend ? Instruction.VariableCallVariableAppend : Instruction.VariableCallVariable, Value.string(name));
+            script.writeConstant(Value.string(((Expr.Variable) expr.getArg(0)).name));
+            return;
+        }
+
+        boolean prevCallAppend = callAppend;
+
+        callAppend = false;
+        for (int i = 0; i < expr.getArgCount(); i++) compile(expr.getArg(i));
+
+        callAppend = prevCallAppend;
+        script.write(callAppend ? Instruction.VariableCallAppend : Instruction.VariableCall, expr.getArgCount());
+        script.writeConstant(Value.string(name));
+    }
+
     @Override
     public void visitLogical(Expr.Logical expr) {
         compile(expr.getLeft());
@@ -167,6 +336,20 @@ public class Compiler implements Expr.Visitor {
 
     @Override
     public void visitConditional(Expr.Conditional expr) {
+        if (isConstantConditional(expr)) {
+            // Both branches are string constants, eg. 'good ? 'yes' : 'no''
+            boolean prevConditionalAppend = conditionalAppend;
+            conditionalAppend = false;
+
+            compile(expr.getCondition());
+
+            conditionalAppend = prevConditionalAppend;
+
+            script.write(conditionalAppend ? Instruction.ConditionalConstantAppend : Instruction.ConditionalConstant, Value.string(((Expr.String) expr.getTrueExpr()).string));
+            script.writeConstant(Value.string(((Expr.String) expr.getFalseExpr()).string));
+            return;
+        }
+
         compile(expr.getCondition());
         int falseJump = script.writeJump(Instruction.JumpIfFalse);
 
@@ -192,4 +375,65 @@ public class Compiler implements Expr.Visitor {
     private void compile(Expr expr) {
         if (expr != null) expr.accept(this);
     }
+
+    /** Returns the number of get expressions in a chain that starts with a variable, or 0 if the chain does not start with a variable or is too long to fit into a single instruction. */
+    private static int getPathLength(Expr.Get expr) {
+        int length = 1;
+        Expr object = expr.getObject();
+
+        while (object instanceof Expr.Get) {
+            length++;
+            object = ((Expr.Get) object).getObject();
+        }
+
+        return (object instanceof Expr.Variable && length <= 255) ? length : 0;
+    }
+
+    private void writePath(Expr expr) {
+        if (expr instanceof Expr.Get) {
+            writePath(((Expr.Get) expr).getObject());
+            script.writeConstant(Value.string(((Expr.Get) expr).name));
+        }
+        else script.writeConstant(Value.string(((Expr.Variable) expr).name));
+    }
+
+    /** Returns the number of operands in a chain of '+' operations that starts with a string constant and therefore always produces a string, or 0 if the expression is not such a chain or it has less than the minimum number of operands. */
+    private static int getConcatLength(Expr expr, int minLength) {
+        int length = 1;
+
+        while (expr instanceof Expr.Binary && ((Expr.Binary) expr).op == Token.Plus) {
+            length++;
+            expr = ((Expr.Binary) expr).getLeft();
+        }
+
+        return (expr instanceof Expr.String && length >= minLength && length <= 255) ? length : 0;
+    }
+
+    private void compileConcatOperands(Expr expr) {
+        if (expr instanceof Expr.Binary && ((Expr.Binary) expr).op == Token.Plus) {
+            compileConcatOperands(((Expr.Binary) expr).getLeft());
+            compile(((Expr.Binary) expr).getRight());
+        }
+        else compile(expr);
+    }
+
+    /** Returns true if looking up the callee of a call after its arguments can't be observed, the fused call instructions only look it up after the arguments were evaluated. */
+    private static boolean canLookUpCalleeLast(Expr.Call expr) {
+        // 'VariableCallVariable' looks up the callee before its argument
+        if (expr.getArgCount() == 1 && expr.getArg(0) instanceof Expr.Variable) return true;
+
+        for (int i = 0; i < expr.getArgCount(); i++) {
+            Expr arg = expr.getArg(i);
+            if (!(arg instanceof Expr.Null || arg instanceof Expr.String || arg instanceof Expr.Number || arg instanceof Expr.Bool)) return false;
+        }
+
+        return true;
+    }
+
+    private static boolean isConstantConditional(Expr expr) {
+        if (!(expr instanceof Expr.Conditional)) return false;
+
+        Expr.Conditional conditional = (Expr.Conditional) expr;
+        return conditional.getTrueExpr() instanceof Expr.String && conditional.getFalseExpr() instanceof Expr.String;
+    }
 }
@@ -17,6 +17,7 @@ public abstract class Expr {
         void visitUnary(Unary expr);
         void visitVariable(Variable expr);
         void visitGet(Get expr);
+        void visitIndex(Index expr);
         void visitCall(Call expr);
         void visitLogical(Logical expr);
         void visitConditional(Conditional expr);
@@ -227,6 +228,25 @@ public abstract class Expr {
         }
     }
 
+    public static class Index extends Expr {
+        public Index(int start, int end, Expr object, Expr index) {
+            super(start, end, new Expr[] { object, index });
+        }
+
+        @Override
+        public void accept(Visitor visitor) {
+            visitor.visitIndex(this);
+        }
+
+        public Expr getObject() {
+            return children[0];
+        }
+
+        public Expr getIndex() {
+            return children[1];
+        }
+    }
+
     public static class Call extends Expr {
         public Call(int start, int end, Expr callee, List<Expr> args) {
             super(start, end, combine(callee, args));
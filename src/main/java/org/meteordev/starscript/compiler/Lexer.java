@@ -10,7 +10,7 @@ public class Lexer {
     public int line = 1, character = -1;
     public char ch;
 
-    private final String source;
+    private String source;
     private final StringBuilder stringBuilder = new StringBuilder();
     public int start, current;
     private int expressionDepth;
@@ -19,6 +19,20 @@ public class Lexer {
         this.source = source;
     }
 
+    /** Starts scanning new source code, reusing the buffers of this lexer. */
+    void reset(String source) {
+        this.source = source;
+
+        token = null;
+        lexeme = null;
+        line = 1;
+        character = -1;
+        ch = 0;
+        start = 0;
+        current = 0;
+        expressionDepth = 0;
+    }
+
     /** Scans for next token storing it in {@link Lexer#token} and {@link Lexer#lexeme}. Produces {@link Token#EOF} if the end of source code has been reached and {@link Token#Error} if there has been an error. */
     public void next() {
         start = current;
@@ -83,6 +97,8 @@ public class Lexer {
                     case ')':  createToken(Token.RightParen); break;
                     case '{':  expressionDepth++; createToken(Token.LeftBrace); break;
                     case '}':  expressionDepth--; createToken(Token.RightBrace); break;
+                    case '[':  createToken(Token.LeftBracket); break;
+                    case ']':  createToken(Token.RightBracket); break;
 
                     case '#':
                         while (isDigit(peek())) advance();
@@ -19,6 +19,18 @@ public class Parser {
         lexer = new Lexer(source);
     }
 
+    /** Parses new source code reusing this parser and its lexer, used by {@link Compiler#compileAll}. */
+    Result parse_(String source) {
+        lexer.reset(source);
+        expressionDepth = 0;
+
+        return parse_();
+    }
+
+    static Parser reusable() {
+        return new Parser("");
+    }
+
     private Result parse_() {
         Result result = new Result();
 
@@ -192,6 +204,12 @@ public class Parser {
             if (match(Token.LeftParen)) {
                 expr = finishCall(expr);
             }
+            else if (match(Token.LeftBracket)) {
+                Expr index = expression();
+                expr = new Expr.Index(start, previous.end, expr, index);
+
+                consume(Token.RightBracket, "Expected ']' after index.", expr);
+            }
             else if (match(Token.Dot)) {
                 if (!check(Token.Identifier)) {
                     expr = new Expr.Get(start, current.end, expr, "");
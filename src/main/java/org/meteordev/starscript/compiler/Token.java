@@ -20,6 +20,7 @@ public enum Token {
     QuestionMark, Colon,
     LeftParen, RightParen,
     LeftBrace, RightBrace,
+    LeftBracket, RightBracket,
 
     Section,
 
@@ -0,0 +1,39 @@
+package org.meteordev.starscript.optimizer;
+
+import org.meteordev.starscript.Instruction;
+import org.meteordev.starscript.Script;
+import org.meteordev.starscript.value.Value;
+
+/** Merges adjacent {@link Instruction#ConstantAppend} instructions into a single one and removes the ones that append an empty string. Stops merging once the constant pool would grow past {@link Script#MAX_CONSTANTS}. */
+public class ConstantAppendMergePass implements OptimizationPass {
+    @Override
+    public boolean run(InstructionList insns) {
+        boolean changed = false;
+        ConstantPool pool = new ConstantPool(insns);
+
+        for (int i = 0; i < insns.size(); i++) {
+            InstructionList.Insn insn = insns.get(i);
+            if (insn.insn != Instruction.ConstantAppend) continue;
+
+            if (insn.constants[0].toString().isEmpty()) {
+                insns.remove(i--);
+                changed = true;
+                continue;
+            }
+
+            while (i + 1 < insns.size()) {
+                InstructionList.Insn next = insns.get(i + 1);
+                if (next.insn != Instruction.ConstantAppend || insns.isJumpTarget(next)) break;
+
+                InstructionList.Insn merged = new InstructionList.Insn(Instruction.ConstantAppend, Value.string(insn.constants[0].toString() + next.constants[0].toString()));
+                if (!pool.replace(merged, insn, next)) break;
+
+                insns.set(i, insn = merged);
+                insns.remove(i + 1);
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+}
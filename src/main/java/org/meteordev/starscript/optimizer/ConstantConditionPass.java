@@ -0,0 +1,120 @@
+package org.meteordev.starscript.optimizer;
+
+import org.meteordev.starscript.Instruction;
+import org.meteordev.starscript.value.Value;
+
+/** Evaluates conditions on constant values. Conditional jumps become unconditional or are removed, comparisons, {@link Instruction#Not} and {@link Instruction#ConditionalConstant} are replaced by their result and appended constants become {@link Instruction#ConstantAppend}. */
+public class ConstantConditionPass implements OptimizationPass {
+    @Override
+    public boolean run(InstructionList insns) {
+        boolean changed = false;
+        ConstantPool pool = new ConstantPool(insns);
+
+        for (int i = 0; i + 1 < insns.size(); i++) {
+            InstructionList.Insn insn = insns.get(i);
+            InstructionList.Insn next = insns.get(i + 1);
+
+            if (!insn.isConstantPush() || insns.isJumpTarget(next)) continue;
+
+            if (next.isConstantPush() && i + 2 < insns.size() && !insns.isJumpTarget(insns.get(i + 2))) {
+                Boolean result = compare(value(insn), value(next), insns.get(i + 2).insn);
+
+                if (result != null) {
+                    insns.remove(i + 2);
+                    insns.remove(i + 1);
+                    insns.set(i, new InstructionList.Insn(result ? Instruction.True : Instruction.False));
+
+                    i = Math.max(i - 2, -1);
+                    changed = true;
+                }
+
+                continue;
+            }
+
+            boolean truthy = isTruthy(insn);
+
+            switch (next.insn) {
+                case JumpIfTrue:
+                case JumpIfFalse: {
+                    // The value stays on the stack for both outcomes
+                    if (truthy == (next.insn == Instruction.JumpIfTrue)) next.insn = Instruction.Jump;
+                    else insns.remove(i + 1);
+                    break;
+                }
+                case Not: {
+                    insns.remove(i + 1);
+                    insns.set(i, new InstructionList.Insn(truthy ? Instruction.False : Instruction.True));
+                    break;
+                }
+                case ConditionalConstant: {
+                    insns.remove(i + 1);
+                    insns.set(i, new InstructionList.Insn(Instruction.Constant, next.constants[truthy ? 0 : 1]));
+                    break;
+                }
+                case Append: {
+                    InstructionList.Insn append = new InstructionList.Insn(Instruction.ConstantAppend, Value.string(value(insn).toString()));
+                    if (!pool.replace(append, insn, next)) continue;
+
+                    insns.remove(i + 1);
+                    insns.set(i, append);
+                    break;
+                }
+                case ConditionalConstantAppend: {
+                    insns.remove(i + 1);
+                    insns.set(i, new InstructionList.Insn(Instruction.ConstantAppend, next.constants[truthy ? 0 : 1]));
+                    break;
+                }
+                default: continue;
+            }
+
+            i = Math.max(i - 1, -1);
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    /** Returns the result of the comparison or null if it is not a comparison or the values are not supported. Comparisons that would report an error at runtime are left alone. */
+    private static Boolean compare(Value a, Value b, Instruction insn) {
+        switch (insn) {
+            case Equals:       return a.equals(b);
+            case NotEquals:    return !a.equals(b);
+            default:           break;
+        }
+
+        if (!a.isNumber() || !b.isNumber()) return null;
+
+        switch (insn) {
+            case Greater:      return a.getNumber() > b.getNumber();
+            case GreaterEqual: return a.getNumber() >= b.getNumber();
+            case Less:         return a.getNumber() < b.getNumber();
+            case LessEqual:    return a.getNumber() <= b.getNumber();
+            default:           return null;
+        }
+    }
+
+    private static Value value(InstructionList.Insn insn) {
+        switch (insn.insn) {
+            case Constant: return insn.constants[0];
+            case True:     return Value.bool(true);
+            case False:    return Value.bool(false);
+            default:       return Value.null_();
+        }
+    }
+
+    private static boolean isTruthy(InstructionList.Insn insn) {
+        switch (insn.insn) {
+            case Constant: return insn.constants[0].isTruthy();
+            case True:     return true;
+            default:       return false;
+        }
+    }
+
+    /** Returns an instruction that pushes the provided value. */
+    static InstructionList.Insn push(Value value) {
+        if (value.isNull()) return new InstructionList.Insn(Instruction.Null);
+        if (value.isBool()) return new InstructionList.Insn(value.getBool() ? Instruction.True : Instruction.False);
+
+        return new InstructionList.Insn(Instruction.Constant, value);
+    }
+}
@@ -0,0 +1,37 @@
+package org.meteordev.starscript.optimizer;
+
+import org.meteordev.starscript.Script;
+import org.meteordev.starscript.value.Value;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/** Counts how many times every constant is used by an {@link InstructionList} so passes can keep the encoded constant pool within {@link Script#MAX_CONSTANTS}. */
+class ConstantPool {
+    private final Map<Value, Integer> uses = new HashMap<>();
+
+    ConstantPool(InstructionList insns) {
+        for (InstructionList.Insn insn : insns) add(insn);
+    }
+
+    /** Counts the constants of the replacement instead of the replaced instructions. Returns false and changes nothing if the encoded script would have too many constants. The instructions themselves are not touched. */
+    boolean replace(InstructionList.Insn replacement, InstructionList.Insn... replaced) {
+        for (InstructionList.Insn insn : replaced) remove(insn);
+        add(replacement);
+
+        if (uses.size() <= Script.MAX_CONSTANTS) return true;
+
+        remove(replacement);
+        for (InstructionList.Insn insn : replaced) add(insn);
+
+        return false;
+    }
+
+    private void add(InstructionList.Insn insn) {
+        for (Value constant : insn.constants) uses.merge(constant, 1, Integer::sum);
+    }
+
+    private void remove(InstructionList.Insn insn) {
+        for (Value constant : insn.constants) uses.computeIfPresent(constant, (k, count) -> count > 1 ? count - 1 : null);
+    }
+}
@@ -0,0 +1,26 @@
+package org.meteordev.starscript.optimizer;
+
+import org.meteordev.starscript.Instruction;
+
+/** Removes instructions that push a constant value which is immediately popped again. */
+public class ConstantPopPass implements OptimizationPass {
+    @Override
+    public boolean run(InstructionList insns) {
+        boolean changed = false;
+
+        for (int i = 0; i + 1 < insns.size(); i++) {
+            InstructionList.Insn insn = insns.get(i);
+            InstructionList.Insn next = insns.get(i + 1);
+
+            if (insn.isConstantPush() && next.insn == Instruction.Pop && !insns.isJumpTarget(next)) {
+                insns.remove(i + 1);
+                insns.remove(i);
+
+                i = Math.max(i - 2, -1);
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+}
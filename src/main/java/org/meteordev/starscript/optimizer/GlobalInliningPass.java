@@ -0,0 +1,88 @@
+package org.meteordev.starscript.optimizer;
+
+import org.meteordev.starscript.Instruction;
+import org.meteordev.starscript.Script;
+import org.meteordev.starscript.value.ConstantSupplier;
+import org.meteordev.starscript.value.Value;
+import org.meteordev.starscript.value.ValueMap;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Replaces reads of global variables that were set to a constant value with the value itself. <br><br>
+ *
+ * Only null, boolean, number and string values are inlined, maps are followed for paths like 'a.b.c' when every map along the way is constant too. The names of the globals that were inlined are collected in {@link #getDependencies()}. Values are not inlined once the constant pool would grow past {@link Script#MAX_CONSTANTS}.
+ */
+public class GlobalInliningPass implements OptimizationPass {
+    private final ValueMap.Snapshot globals;
+    private final Set<String> dependencies = new HashSet<>();
+
+    public GlobalInliningPass(ValueMap.Snapshot globals) {
+        this.globals = globals;
+    }
+
+    @Override
+    public boolean run(InstructionList insns) {
+        boolean changed = false;
+        ConstantPool pool = new ConstantPool(insns);
+
+        for (int i = 0; i < insns.size(); i++) {
+            InstructionList.Insn insn = insns.get(i);
+            boolean append;
+
+            switch (insn.insn) {
+                case Variable:
+                case VariableGet:
+                case VariablePath:           append = false; break;
+                case VariableAppend:
+                case VariableGetAppend:
+                case VariablePathAppend:     append = true; break;
+                default:                     continue;
+            }
+
+            Value value = resolve(insn.constants);
+            if (value == null) continue;
+
+            InstructionList.Insn inlined = append ? new InstructionList.Insn(Instruction.ConstantAppend, Value.string(value.toString())) : ConstantConditionPass.push(value);
+            if (!pool.replace(inlined, insn)) continue;
+
+            dependencies.add(insn.constants[0].getString());
+            insns.set(i, inlined);
+
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    /** Returns the constant value at the path or null if it is not constant or can't be inlined. */
+    private Value resolve(Value[] names) {
+        Value value = null;
+
+        for (int i = 0; i < names.length; i++) {
+            Supplier<Value> supplier;
+
+            if (i == 0) supplier = globals.getRaw(names[i].getString());
+            else if (value.isMap()) supplier = value.getMap().getRaw(names[i].getString());
+            else return null;
+
+            if (!(supplier instanceof ConstantSupplier)) return null;
+            value = ((ConstantSupplier) supplier).value;
+        }
+
+        switch (value.type) {
+            case Null:
+            case Boolean:
+            case Number:  return value;
+            case String:  return value.isCharSequence() ? null : value;
+            default:      return null;
+        }
+    }
+
+    /** Returns the names of the global variables whose values were inlined. */
+    public Set<String> getDependencies() {
+        return dependencies;
+    }
+}
@@ -0,0 +1,222 @@
+package org.meteordev.starscript.optimizer;
+
+import org.meteordev.starscript.Instruction;
+import org.meteordev.starscript.Script;
+import org.meteordev.starscript.value.Value;
+
+import java.util.*;
+
+/** Decoded representation of {@link Script#code} that can be freely modified and encoded back into a new {@link Script}. Jumps point directly to their target instructions instead of using byte offsets. */
+public class InstructionList implements Iterable<InstructionList.Insn> {
+    private static final Value[] NO_CONSTANTS = new Value[0];
+
+    private final List<Insn> insns = new ArrayList<>();
+
+    /** Decodes the provided script. */
+    public static InstructionList decode(Script script) {
+        InstructionList list = new InstructionList();
+
+        Map<Integer, Insn> offsets = new HashMap<>();
+        Map<Insn, Integer> jumps = new HashMap<>();
+
+        byte[] code = script.code;
+        int ip = 0;
+
+        while (ip < script.getSize()) {
+            int offset = ip;
+            Insn insn = new Insn(Instruction.valueOf(code[ip++]));
+
+            switch (insn.insn) {
+                case Constant:
+                case ConstantAppend:
+                case AddConstant:
+                case Variable:
+                case VariableAppend:
+                case Get:
+                case GetAppend:                  insn.constants = new Value[] { constant(script, code[ip++]) }; break;
+                case Call:
+                case CallAppend:
+                case Section:
+                case Concat:
+                case ConcatAppend:               insn.operand = code[ip++] & 0xFF; break;
+                case Jump:
+                case JumpIfTrue:
+                case JumpIfFalse:                { int jump = ((code[ip++] & 0xFF) << 8) | (code[ip++] & 0xFF); jumps.put(insn, ip + jump); break; }
+                case VariableGet:
+                case VariableGetAppend:
+                case VariableCallVariable:
+                case VariableCallVariableAppend:
+                case ConditionalConstant:
+                case ConditionalConstantAppend:  insn.constants = new Value[] { constant(script, code[ip++]), constant(script, code[ip++]) }; break;
+                case VariableCall:
+                case VariableCallAppend:         insn.operand = code[ip++] & 0xFF; insn.constants = new Value[] { constant(script, code[ip++]) }; break;
+                case VariablePath:
+                case VariablePathAppend: {
+                    insn.operand = code[ip++] & 0xFF;
+                    insn.constants = new Value[insn.operand + 1];
+                    for (int i = 0; i < insn.constants.length; i++) insn.constants[i] = constant(script, code[ip++]);
+                    break;
+                }
+            }
+
+            offsets.put(offset, insn);
+            list.insns.add(insn);
+        }
+
+        for (Map.Entry<Insn, Integer> entry : jumps.entrySet()) {
+            Insn target = offsets.get(entry.getValue());
+            if (target == null) throw new IllegalStateException("Jump to an invalid offset " + entry.getValue() + ".");
+
+            entry.getKey().target = target;
+        }
+
+        return list;
+    }
+
+    private static Value constant(Script script, byte i) {
+        return script.constants.get(i & 0xFF);
+    }
+
+    /** Encodes the instructions into a new {@link Script}. Only constants that are still referenced are added to the new constant pool, throws if there are more than {@link Script#MAX_CONSTANTS}. */
+    public Script encode() {
+        Script script = new Script();
+
+        Map<Insn, Integer> indexes = new IdentityHashMap<>();
+        for (int i = 0; i < insns.size(); i++) indexes.put(insns.get(i), i);
+
+        Map<Insn, List<Integer>> pendingJumps = new IdentityHashMap<>();
+
+        for (Insn insn : insns) {
+            List<Integer> jumps = pendingJumps.remove(insn);
+            if (jumps != null) {
+                for (int jump : jumps) script.patchJump(jump);
+            }
+
+            switch (insn.insn) {
+                case Jump:
+                case JumpIfTrue:
+                case JumpIfFalse: {
+                    Integer target = indexes.get(insn.target);
+                    if (target == null) throw new IllegalStateException("Jump to an instruction that is not part of the list.");
+                    if (target <= indexes.get(insn)) throw new IllegalStateException("Jumps can only go forward.");
+
+                    pendingJumps.computeIfAbsent(insn.target, k -> new ArrayList<>()).add(script.writeJump(insn.insn));
+                    break;
+                }
+                case Call:
+                case CallAppend:
+                case Section:
+                case Concat:
+                case ConcatAppend:
+                case VariableCall:
+                case VariableCallAppend:
+                case VariablePath:
+                case VariablePathAppend: {
+                    script.write(insn.insn, insn.operand);
+                    for (Value constant : insn.constants) script.writeConstant(constant);
+                    break;
+                }
+                default: {
+                    script.write(insn.insn);
+                    for (Value constant : insn.constants) script.writeConstant(constant);
+                    break;
+                }
+            }
+        }
+
+        if (!pendingJumps.isEmpty()) throw new IllegalStateException("Jump to an instruction that is not part of the list.");
+        return script;
+    }
+
+    // List operations
+
+    /** Returns the number of instructions. */
+    public int size() {
+        return insns.size();
+    }
+
+    /** Returns the instruction at the provided index. */
+    public Insn get(int i) {
+        return insns.get(i);
+    }
+
+    /** Returns the index of the provided instruction or -1 if it is not part of this list. */
+    public int indexOf(Insn insn) {
+        return insns.indexOf(insn);
+    }
+
+    /** Inserts a new instruction at the provided index. */
+    public void add(int i, Insn insn) {
+        insns.add(i, insn);
+    }
+
+    /** Replaces the instruction at the provided index, jumps that targeted the old instruction will target the new one. */
+    public void set(int i, Insn insn) {
+        retarget(insns.set(i, insn), insn);
+    }
+
+    /** Removes the instruction at the provided index, jumps that targeted it will target the instruction that followed it. */
+    public Insn remove(int i) {
+        Insn insn = insns.remove(i);
+        if (i < insns.size()) retarget(insn, insns.get(i));
+
+        return insn;
+    }
+
+    /** Returns true if any jump targets the provided instruction. */
+    public boolean isJumpTarget(Insn insn) {
+        for (Insn i : insns) {
+            if (i.target == insn) return true;
+        }
+
+        return false;
+    }
+
+    private void retarget(Insn from, Insn to) {
+        for (Insn insn : insns) {
+            if (insn.target == from) insn.target = to;
+        }
+    }
+
+    @Override
+    public Iterator<Insn> iterator() {
+        return insns.iterator();
+    }
+
+    // Instruction
+
+    /** A single decoded instruction. */
+    public static class Insn {
+        public Instruction insn;
+        /** Byte operand, argument count for calls, index for sections and length for variable paths. */
+        public int operand;
+        /** Constant operands in the order they are encoded. */
+        public Value[] constants = NO_CONSTANTS;
+        /** Target of jump instructions. */
+        public Insn target;
+
+        public Insn(Instruction insn) {
+            this.insn = insn;
+        }
+
+        public Insn(Instruction insn, Value constant) {
+            this.insn = insn;
+            this.constants = new Value[] { constant };
+        }
+
+        /** Returns true if this instruction is {@link Instruction#Jump}, {@link Instruction#JumpIfTrue} or {@link Instruction#JumpIfFalse}. */
+        public boolean isJump() {
+            return insn == Instruction.Jump || insn == Instruction.JumpIfTrue || insn == Instruction.JumpIfFalse;
+        }
+
+        /** Returns true if this instruction only pushes a constant value on the stack. */
+        public boolean isConstantPush() {
+            return insn == Instruction.Constant || insn == Instruction.Null || insn == Instruction.True || insn == Instruction.False;
+        }
+
+        @Override
+        public String toString() {
+            return constants.length > 0 ? insn + " " + Arrays.toString(constants) : insn.toString();
+        }
+    }
+}
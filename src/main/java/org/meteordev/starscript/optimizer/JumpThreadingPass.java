@@ -0,0 +1,48 @@
+package org.meteordev.starscript.optimizer;
+
+import org.meteordev.starscript.Instruction;
+
+/**
+ * Makes jumps that land on other jumps go directly to the final target. <br><br>
+ *
+ * Conditional jumps only look at the value on top of the stack without popping it so a conditional jump landing on a conditional jump of the same kind always jumps again, and one landing on the opposite kind never does. Unconditional jumps to {@link Instruction#End} are replaced by {@link Instruction#End} and jumps to the next instruction are removed since they do not change the stack.
+ */
+public class JumpThreadingPass implements OptimizationPass {
+    @Override
+    public boolean run(InstructionList insns) {
+        boolean changed = false;
+
+        for (int i = 0; i < insns.size(); i++) {
+            InstructionList.Insn insn = insns.get(i);
+            if (!insn.isJump()) continue;
+
+            // Follow the chain of jumps, bounded by the number of instructions
+            for (int j = 0; j < insns.size(); j++) {
+                InstructionList.Insn target = insn.target;
+                InstructionList.Insn newTarget = null;
+
+                if (target.insn == Instruction.Jump || (insn.insn != Instruction.Jump && target.insn == insn.insn)) newTarget = target.target;
+                else if (insn.insn != Instruction.Jump && target.isJump() && target.insn != Instruction.Jump) {
+                    int targetI = insns.indexOf(target);
+                    if (targetI + 1 < insns.size()) newTarget = insns.get(targetI + 1);
+                }
+
+                if (newTarget == null || newTarget == target) break;
+
+                insn.target = newTarget;
+                changed = true;
+            }
+
+            if (insn.insn == Instruction.Jump && insn.target.insn == Instruction.End) {
+                insns.set(i, new InstructionList.Insn(Instruction.End));
+                changed = true;
+            }
+            else if (i + 1 < insns.size() && insn.target == insns.get(i + 1)) {
+                insns.remove(i--);
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+}
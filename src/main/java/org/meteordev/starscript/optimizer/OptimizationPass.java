@@ -0,0 +1,7 @@
+package org.meteordev.starscript.optimizer;
+
+/** A single transformation over decoded instructions that is run by {@link ScriptOptimizer}. */
+public interface OptimizationPass {
+    /** Transforms the instructions in place and returns true if anything was changed. */
+    boolean run(InstructionList insns);
+}
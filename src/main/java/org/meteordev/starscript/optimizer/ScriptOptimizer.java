@@ -0,0 +1,98 @@
+package org.meteordev.starscript.optimizer;
+
+import org.meteordev.starscript.Script;
+import org.meteordev.starscript.Starscript;
+import org.meteordev.starscript.compiler.Compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs an ordered list of {@link OptimizationPass}es over compiled {@link Script}s. <br><br>
+ *
+ * Every pass is registered with the minimum optimization level it requires and only passes with a level lower or equal to {@link #getLevel()} are run. The passes are repeated until none of them changes anything. The optimized script is encoded from scratch so its constant pool only contains constants that are still used.
+ */
+public class ScriptOptimizer {
+    /** Does not run any passes and returns scripts unchanged. */
+    public static final int LEVEL_NONE = 0;
+    /** Cheap local passes that never change control flow. */
+    public static final int LEVEL_BASIC = 1;
+    /** All passes including the ones that rewrite jumps. */
+    public static final int LEVEL_FULL = 2;
+
+    private static final int MAX_ROUNDS = 16;
+
+    private final List<Entry> passes = new ArrayList<>();
+    private int level;
+
+    public ScriptOptimizer(int level) {
+        this.level = level;
+    }
+
+    /** Creates an optimizer with the built-in passes. */
+    public static ScriptOptimizer standard(int level) {
+        return new ScriptOptimizer(level)
+                .addPass(LEVEL_BASIC, new ConstantAppendMergePass())
+                .addPass(LEVEL_BASIC, new ConstantPopPass())
+                .addPass(LEVEL_FULL, new ConstantConditionPass())
+                .addPass(LEVEL_FULL, new JumpThreadingPass())
+                .addPass(LEVEL_FULL, new UnreachableCodePass());
+    }
+
+    /** Adds a pass to the end of the pipeline that only runs if the optimization level is at least the provided level. */
+    public ScriptOptimizer addPass(int level, OptimizationPass pass) {
+        passes.add(new Entry(level, pass));
+        return this;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    /** Returns an optimized copy of the provided script, or the script itself if the optimization level is {@link #LEVEL_NONE} or the optimized script would have more than {@link Script#MAX_CONSTANTS} constants. Scripts produced by {@link Compiler#compile} are never modified. */
+    public Script optimize(Script script) {
+        if (level <= LEVEL_NONE) return script;
+
+        InstructionList insns = InstructionList.decode(script);
+        optimize(insns);
+
+        try {
+            return insns.encode();
+        } catch (IllegalStateException e) {
+            // Passes that fold constants can add new ones, the unoptimized script still works
+            return script;
+        }
+    }
+
+    /** Returns a copy of the script with constant globals inlined, kept up to date when they change. See {@link SpecializedScript}. */
+    public static SpecializedScript specialize(Script script, Starscript ss) {
+        return new SpecializedScript(script, ss, standard(LEVEL_FULL));
+    }
+
+    /** Runs the passes over already decoded instructions. */
+    public void optimize(InstructionList insns) {
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            boolean changed = false;
+
+            for (Entry entry : passes) {
+                if (entry.level <= level && entry.pass.run(insns)) changed = true;
+            }
+
+            if (!changed) break;
+        }
+    }
+
+    private static class Entry {
+        public final int level;
+        public final OptimizationPass pass;
+
+        public Entry(int level, OptimizationPass pass) {
+            this.level = level;
+            this.pass = pass;
+        }
+    }
+}
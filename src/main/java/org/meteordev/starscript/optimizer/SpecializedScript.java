@@ -0,0 +1,96 @@
+package org.meteordev.starscript.optimizer;
+
+import org.meteordev.starscript.Script;
+import org.meteordev.starscript.Section;
+import org.meteordev.starscript.Starscript;
+import org.meteordev.starscript.utils.ChangeListener;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Script specialized for the current values of constant globals, see {@link ScriptOptimizer#specialize(Script, Starscript)}. <br><br>
+ *
+ * Globals set to a constant value are inlined and conditions depending on them are evaluated, so branches that can't be taken are removed. When one of the inlined globals is changed through the globals of the {@link Starscript} instance the script is specialized again the next time it is used. Changes made directly to nested maps are not noticed. If the specialized script would have more than {@link Script#MAX_CONSTANTS} constants the original script is used instead.
+ */
+public class SpecializedScript {
+    private final Script script;
+    private final Starscript ss;
+    private final ScriptOptimizer optimizer;
+    private final ChangeListener listener = this::onChange;
+
+    private volatile Script specialized;
+    private volatile Set<String> dependencies;
+    private volatile boolean stale = true;
+
+    public SpecializedScript(Script script, Starscript ss, ScriptOptimizer optimizer) {
+        this.script = script;
+        this.ss = ss;
+        this.optimizer = optimizer;
+
+        ss.getGlobals().addListener(listener);
+    }
+
+    /** Returns the specialized script, specializing it again if any of the inlined globals changed. */
+    public Script get() {
+        Script specialized = this.specialized;
+        if (!stale && specialized != null) return specialized;
+
+        specialize();
+        return this.specialized;
+    }
+
+    /** Runs the specialized script. */
+    public Section run() {
+        return ss.run(get());
+    }
+
+    /** Returns the script this was created from. */
+    public Script getScript() {
+        return script;
+    }
+
+    /** Returns the names of the globals that were inlined. */
+    public Set<String> getDependencies() {
+        Set<String> dependencies = this.dependencies;
+        return dependencies != null ? Collections.unmodifiableSet(dependencies) : Collections.emptySet();
+    }
+
+    /** Stops listening to changes of the globals. */
+    public void close() {
+        ss.getGlobals().removeListener(listener);
+    }
+
+    private synchronized void specialize() {
+        if (!stale && specialized != null) return;
+
+        // Any change made while specializing marks the script as stale again
+        dependencies = null;
+        stale = false;
+
+        InstructionList insns = InstructionList.decode(script);
+        GlobalInliningPass inlining = new GlobalInliningPass(ss.getGlobals().snapshot());
+
+        inlining.run(insns);
+        optimizer.optimize(insns);
+
+        try {
+            specialized = insns.encode();
+            dependencies = inlining.getDependencies();
+        } catch (IllegalStateException e) {
+            // Too many constants, keep running the script as it is
+            specialized = script;
+            dependencies = Collections.emptySet();
+        }
+    }
+
+    private void onChange(String name) {
+        Set<String> dependencies = this.dependencies;
+
+        if (name == null || dependencies == null) stale = true;
+        else {
+            int dotI = name.indexOf('.');
+            if (dependencies.contains(dotI >= 0 ? name.substring(0, dotI) : name)) stale = true;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.meteordev.starscript.optimizer;
+
+import org.meteordev.starscript.Instruction;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/** Removes instructions that can never be executed, for example the ones that follow an unconditional {@link Instruction#Jump} and are not the target of any jump. */
+public class UnreachableCodePass implements OptimizationPass {
+    @Override
+    public boolean run(InstructionList insns) {
+        if (insns.size() == 0) return false;
+
+        Set<InstructionList.Insn> reachable = Collections.newSetFromMap(new IdentityHashMap<>());
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(0);
+
+        while (!queue.isEmpty()) {
+            int i = queue.poll();
+            if (i >= insns.size()) continue;
+
+            InstructionList.Insn insn = insns.get(i);
+            if (!reachable.add(insn)) continue;
+
+            if (insn.isJump()) queue.add(insns.indexOf(insn.target));
+            if (insn.insn != Instruction.Jump && insn.insn != Instruction.End) queue.add(i + 1);
+        }
+
+        boolean changed = false;
+
+        for (int i = insns.size() - 1; i >= 0; i--) {
+            if (!reachable.contains(insns.get(i))) {
+                insns.remove(i);
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+}
@@ -0,0 +1,16 @@
+package org.meteordev.starscript.processor;
+
+import org.meteordev.starscript.optimizer.ScriptOptimizer;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/** Marks a static final {@link String} constant as starscript code that is compiled during the build by {@link TemplateProcessor}. */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.FIELD)
+public @interface Template {
+    /** Optimization level the script is optimized with, see {@link ScriptOptimizer#standard(int)}. */
+    int optimize() default ScriptOptimizer.LEVEL_NONE;
+}
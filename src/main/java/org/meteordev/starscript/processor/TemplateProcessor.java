@@ -0,0 +1,143 @@
+package org.meteordev.starscript.processor;
+
+import org.meteordev.starscript.Script;
+import org.meteordev.starscript.compiler.Compiler;
+import org.meteordev.starscript.compiler.Parser;
+import org.meteordev.starscript.optimizer.ScriptOptimizer;
+import org.meteordev.starscript.utils.Error;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Annotation processor that compiles constants marked with {@link Template} while the project is being built. <br><br>
+ *
+ * Templates with parse errors fail the build. For every class containing templates a class named after it with a 'Scripts' suffix is generated in the same package, it has a {@link Script} constant with the same name for every template which is loaded from the compiled code without parsing.
+ */
+@SupportedAnnotationTypes("org.meteordev.starscript.processor.Template")
+public class TemplateProcessor extends AbstractProcessor {
+    // String literals in class files are limited to 65535 bytes
+    private static final int CHUNK_SIZE = 60000;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Map<TypeElement, List<VariableElement>> types = new LinkedHashMap<>();
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(Template.class)) {
+            VariableElement field = (VariableElement) element;
+
+            if (!field.getModifiers().contains(Modifier.STATIC) || !(field.getConstantValue() instanceof String)) {
+                error(field, "@Template can only be used on static final String constants.");
+                continue;
+            }
+
+            types.computeIfAbsent((TypeElement) field.getEnclosingElement(), k -> new ArrayList<>()).add(field);
+        }
+
+        for (Map.Entry<TypeElement, List<VariableElement>> entry : types.entrySet()) {
+            generate(entry.getKey(), entry.getValue());
+        }
+
+        return true;
+    }
+
+    private void generate(TypeElement type, List<VariableElement> fields) {
+        Map<String, byte[]> scripts = new LinkedHashMap<>();
+
+        for (VariableElement field : fields) {
+            byte[] script = compile(field);
+            if (script != null) scripts.put(field.getSimpleName().toString(), script);
+        }
+
+        // Errors were already reported
+        if (scripts.size() != fields.size()) return;
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String name = getName(type) + "Scripts";
+
+        StringBuilder sb = new StringBuilder();
+
+        if (!packageName.isEmpty()) sb.append("package ").append(packageName).append(";\n\n");
+
+        sb.append("import org.meteordev.starscript.Script;\n\n");
+        sb.append("import java.util.Base64;\n\n");
+        sb.append("/** Scripts compiled from the templates in {@link ").append(type.getQualifiedName()).append("}. Generated by ").append(TemplateProcessor.class.getSimpleName()).append(", do not edit. */\n");
+        sb.append("public final class ").append(name).append(" {\n");
+
+        for (Map.Entry<String, byte[]> entry : scripts.entrySet()) {
+            String data = Base64.getEncoder().encodeToString(entry.getValue());
+
+            sb.append("    public static final Script ").append(entry.getKey()).append(" = load(");
+
+            for (int i = 0; i < data.length(); i += CHUNK_SIZE) {
+                if (i > 0) sb.append(", ");
+                sb.append('"').append(data, i, Math.min(i + CHUNK_SIZE, data.length())).append('"');
+            }
+
+            sb.append(");\n");
+        }
+
+        sb.append("\n");
+        sb.append("    private ").append(name).append("() {}\n\n");
+        sb.append("    private static Script load(String... data) {\n");
+        sb.append("        return Script.fromBytes(Base64.getDecoder().decode(String.join(\"\", data)));\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? name : packageName + "." + name;
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(sb.toString());
+        } catch (IOException e) {
+            error(type, "Failed to write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private byte[] compile(VariableElement field) {
+        Parser.Result result = Parser.parse((String) field.getConstantValue());
+
+        if (result.hasErrors()) {
+            for (Error error : result.errors) error(field, "Invalid template " + error);
+            return null;
+        }
+
+        try {
+            Script script = Compiler.compile(result);
+
+            int level = field.getAnnotation(Template.class).optimize();
+            if (level != ScriptOptimizer.LEVEL_NONE) script = ScriptOptimizer.standard(level).optimize(script);
+
+            return script.toBytes();
+        } catch (RuntimeException e) {
+            error(field, "Failed to compile template: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Returns the simple name of the type prefixed with the names of the types it is nested in. */
+    private static String getName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+
+        for (Element e = type.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement()) {
+            name.insert(0, '_').insert(0, e.getSimpleName());
+        }
+
+        return name.toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -53,6 +53,11 @@ public abstract class AbstractExprVisitor implements Expr.Visitor {
         for (Expr child : expr.children) child.accept(this);
     }
 
+    @Override
+    public void visitIndex(Expr.Index expr) {
+        for (Expr child : expr.children) child.accept(this);
+    }
+
     @Override
     public void visitCall(Expr.Call expr) {
         for (Expr child : expr.children) child.accept(this);
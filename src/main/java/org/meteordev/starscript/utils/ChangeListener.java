@@ -0,0 +1,10 @@
+package org.meteordev.starscript.utils;
+
+import org.meteordev.starscript.TemplateRepository;
+import org.meteordev.starscript.value.ValueMap;
+
+/** Used in {@link ValueMap#addListener(ChangeListener)} and {@link TemplateRepository#addListener(ChangeListener)}. */
+public interface ChangeListener {
+    /** Called after a variable was changed, the name uses dot notation relative to the map the change was made through. It is null when all variables were removed. For templates it is the file name. */
+    void onChange(String name);
+}
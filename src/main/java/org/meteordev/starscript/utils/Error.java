@@ -2,7 +2,7 @@ package org.meteordev.starscript.utils;
 
 import org.meteordev.starscript.compiler.Expr;
 
-/** Class for storing errors produced while parsing. */
+/** Class for storing errors produced while parsing or compiling. */
 public class Error {
     public final int line;
     public final int character;
@@ -0,0 +1,15 @@
+package org.meteordev.starscript.utils;
+
+import org.meteordev.starscript.Starscript;
+import org.meteordev.starscript.value.Value;
+
+/** {@link SFunction} that takes a single number and returns a number. When called with a single number argument {@link Starscript} calls {@link #apply(double)} directly without boxing it. */
+public interface NumberFn1 extends SFunction {
+    double apply(double a);
+
+    @Override
+    default Value run(Starscript ss, int argCount) {
+        if (argCount != 1) ss.error("Function requires 1 argument, got %d.", argCount);
+        return Value.number(apply(ss.popNumber("Argument to function needs to be a number.")));
+    }
+}
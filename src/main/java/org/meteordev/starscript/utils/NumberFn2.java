@@ -0,0 +1,19 @@
+package org.meteordev.starscript.utils;
+
+import org.meteordev.starscript.Starscript;
+import org.meteordev.starscript.value.Value;
+
+/** {@link SFunction} that takes two numbers and returns a number. When called with two number arguments {@link Starscript} calls {@link #apply(double, double)} directly without boxing them. */
+public interface NumberFn2 extends SFunction {
+    double apply(double a, double b);
+
+    @Override
+    default Value run(Starscript ss, int argCount) {
+        if (argCount != 2) ss.error("Function requires 2 arguments, got %d.", argCount);
+
+        double b = ss.popNumber("Second argument to function needs to be a number.");
+        double a = ss.popNumber("First argument to function needs to be a number.");
+
+        return Value.number(apply(a, b));
+    }
+}
@@ -0,0 +1,9 @@
+package org.meteordev.starscript.utils;
+
+import org.meteordev.starscript.Starscript;
+
+/** {@link SFunction} that can write its result directly into the output. When the result of a call is only appended to the output {@link Starscript} calls {@link #append(Starscript, int, StringBuilder)} instead of {@link #run(Starscript, int)} and no value is created. */
+public interface SAppendFunction extends SFunction {
+    /** Pops the arguments the same way {@link #run(Starscript, int)} does and appends the text of the result. */
+    void append(Starscript ss, int argCount, StringBuilder sb);
+}
@@ -72,6 +72,8 @@ public class SemanticTokenProvider {
 
                 case LeftParen:
                 case RightParen:
+                case LeftBracket:
+                case RightBracket:
                     tokens.add(new SemanticToken(SemanticTokenType.Paren, lexer.start, lexer.current));
                     break;
 
@@ -0,0 +1,9 @@
+package org.meteordev.starscript.utils;
+
+import org.meteordev.starscript.value.Value;
+
+/** Objects stored using {@link Value#object(Object)} or {@link Value#charSequence(CharSequence)} that implement this interface write their text directly into the output instead of creating a string with {@link Object#toString()} first. */
+public interface StarscriptAppendable {
+    /** Appends the text representation of this object, it should be the same as {@link Object#toString()}. */
+    void appendTo(StringBuilder sb);
+}
@@ -1,7 +1,52 @@
 package org.meteordev.starscript.utils;
 
+/** Error reported while running a script. Errors created with a {@link Code} do not capture a stack trace and their message is only formatted when requested, so templates that keep failing stay cheap. */
 public class StarscriptError extends RuntimeException {
+    /** Kind of the error. */
+    public enum Code {
+        /** An operation got values of types it can't work with. */
+        Type,
+        /** A value that is not a function was called. */
+        NotCallable,
+        /** A function got an argument of the wrong type. */
+        Argument,
+        /** A function reported an error. */
+        Function,
+        /** Any other error. */
+        Other
+    }
+
+    private final Code code;
+    private final String format;
+    private final Object[] args;
+
+    private String message;
+
+    /** Creates an error with a stack trace, used for errors reported by the API outside of running scripts. */
     public StarscriptError(String message) {
         super(message);
+
+        this.code = Code.Other;
+        this.format = message;
+        this.args = null;
+    }
+
+    /** Creates an error whose message is created using {@link String#format(String, Object...)} when it is first requested. */
+    public StarscriptError(Code code, String format, Object... args) {
+        super(null, null, false, false);
+
+        this.code = code;
+        this.format = format;
+        this.args = args;
+    }
+
+    public Code getCode() {
+        return code;
+    }
+
+    @Override
+    public String getMessage() {
+        if (message == null) message = args == null ? format : String.format(format, args);
+        return message;
     }
 }
@@ -0,0 +1,15 @@
+package org.meteordev.starscript.utils;
+
+import org.meteordev.starscript.Starscript;
+import org.meteordev.starscript.value.Value;
+
+/** {@link SFunction} that takes a single string and returns a string. When called with a single string argument {@link Starscript} calls {@link #apply(String)} directly without boxing it. */
+public interface StringFn1 extends SFunction {
+    String apply(String a);
+
+    @Override
+    default Value run(Starscript ss, int argCount) {
+        if (argCount != 1) ss.error("Function requires 1 argument, got %d.", argCount);
+        return Value.string(apply(ss.popString("Argument to function needs to be a string.")));
+    }
+}
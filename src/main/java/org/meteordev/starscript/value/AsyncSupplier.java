@@ -0,0 +1,25 @@
+package org.meteordev.starscript.value;
+
+import org.meteordev.starscript.Script;
+import org.meteordev.starscript.Starscript;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/** Supplier for values that are slow to get, for example from a database or disk. {@link Starscript#renderAsync(Script)} fetches them concurrently before running a script, {@link #get()} waits for the value. */
+@FunctionalInterface
+public interface AsyncSupplier extends Supplier<Value> {
+    /** Starts getting the value, blocking work should be run on the provided executor. */
+    CompletableFuture<Value> getAsync(Executor executor);
+
+    @Override
+    default Value get() {
+        return getAsync(Runnable::run).join();
+    }
+
+    /** Creates an async supplier that runs a blocking supplier on the executor. */
+    static AsyncSupplier of(Supplier<Value> supplier) {
+        return executor -> CompletableFuture.supplyAsync(supplier, executor);
+    }
+}
@@ -0,0 +1,17 @@
+package org.meteordev.starscript.value;
+
+import java.util.function.Supplier;
+
+/** Supplier that always returns the same value. Used for variables set with a fixed value so they can be recognized without calling the supplier. */
+public final class ConstantSupplier implements Supplier<Value> {
+    public final Value value;
+
+    public ConstantSupplier(Value value) {
+        this.value = value;
+    }
+
+    @Override
+    public Value get() {
+        return value;
+    }
+}
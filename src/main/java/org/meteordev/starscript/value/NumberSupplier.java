@@ -0,0 +1,22 @@
+package org.meteordev.starscript.value;
+
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/** Supplier of a number variable set with a {@link DoubleSupplier}. {@link org.meteordev.starscript.Starscript} reads the number directly when appending it so no value is created. */
+public final class NumberSupplier implements Supplier<Value> {
+    private final DoubleSupplier supplier;
+
+    public NumberSupplier(DoubleSupplier supplier) {
+        this.supplier = supplier;
+    }
+
+    public double getNumber() {
+        return supplier.getAsDouble();
+    }
+
+    @Override
+    public Value get() {
+        return Value.number(supplier.getAsDouble());
+    }
+}
@@ -0,0 +1,22 @@
+package org.meteordev.starscript.value;
+
+import java.util.function.Supplier;
+
+/** Supplier of a string variable set with {@link ValueMap#setString(String, Supplier)}. {@link org.meteordev.starscript.Starscript} reads the string directly when appending it so no value is created. A null string is the null value. */
+public final class StringSupplier implements Supplier<Value> {
+    private final Supplier<String> supplier;
+
+    public StringSupplier(Supplier<String> supplier) {
+        this.supplier = supplier;
+    }
+
+    public String getString() {
+        return supplier.get();
+    }
+
+    @Override
+    public Value get() {
+        String string = supplier.get();
+        return string != null ? Value.string(string) : Value.null_();
+    }
+}
@@ -1,7 +1,9 @@
 package org.meteordev.starscript.value;
 
 import org.meteordev.starscript.utils.SFunction;
+import org.meteordev.starscript.utils.StarscriptAppendable;
 
+import java.util.Arrays;
 import java.util.function.Supplier;
 
 /** Class that holds any starscript value. */
@@ -28,12 +30,20 @@ public class Value {
     public static Value string(String string) {
         return new VString(string);
     }
+    /** Creates a string value backed by the provided {@link CharSequence} which is appended to the output directly. The sequence is only converted to a {@link String} when {@link #getString()} is called. */
+    public static Value charSequence(CharSequence chars) {
+        return new VCharSequence(chars);
+    }
     public static Value function(SFunction function) {
         return new Function(function);
     }
     public static Value map(ValueMap fields) {
         return new Map(fields);
     }
+    /** Creates a list value backed by the provided array, the array is not copied. */
+    public static Value list(Value... values) {
+        return new List(values);
+    }
     public static Value object(java.lang.Object object) {
         return new Object(object);
     }
@@ -56,9 +66,16 @@ public class Value {
     public boolean isMap() {
         return type == ValueType.Map;
     }
+    public boolean isList() {
+        return type == ValueType.List;
+    }
     public boolean isObject() {
         return type == ValueType.Object;
     }
+    /** Returns true for string values created with {@link #charSequence(CharSequence)}, their content can change without the value changing. */
+    public boolean isCharSequence() {
+        return this instanceof VCharSequence;
+    }
 
     public boolean getBool() {
         return ((Boolean) this).bool;
@@ -67,7 +84,8 @@ public class Value {
         return ((Number) this).number;
     }
     public String getString() {
-        return ((VString) this).string;
+        if (this instanceof VString) return ((VString) this).string;
+        return ((VCharSequence) this).chars.toString();
     }
     public SFunction getFunction() {
         return ((Function) this).function;
@@ -75,6 +93,9 @@ public class Value {
     public ValueMap getMap() {
         return ((Map) this).fields;
     }
+    public Value[] getList() {
+        return ((List) this).values;
+    }
     public java.lang.Object getObject() {
         return ((Object) this).object;
     }
@@ -88,6 +109,7 @@ public class Value {
             case String:
             case Function:
             case Map:
+            case List:
             case Object:   return true;
         }
     }
@@ -95,7 +117,7 @@ public class Value {
     @Override
     public boolean equals(java.lang.Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof Value)) return false;
 
         Value value = (Value) o;
         if (type != value.type) return false;
@@ -107,21 +129,24 @@ public class Value {
             case String:   return getString().equals(value.getString());
             case Function: return getFunction() == value.getFunction();
             case Map:      return getMap() == value.getMap();
+            case List:     return Arrays.equals(getList(), value.getList());
             case Object:   return getObject().equals(value.getObject());
             default:       return false;
         }
     }
 
+    /** Hash code based on the content of this value that is consistent with {@link #equals(java.lang.Object)}. Functions and maps are compared by identity so they use identity hash codes. */
     @Override
     public int hashCode() {
-        int result = 31 * super.hashCode();
+        int result = 31 * type.ordinal();
 
         switch (type) {
             case Boolean:  result += java.lang.Boolean.hashCode(getBool()); break;
-            case Number:   result += Double.hashCode(getNumber()); break;
+            case Number:   { double n = getNumber(); result += Double.hashCode(n == 0 ? 0.0 : n); break; } // 0.0 == -0.0
             case String:   result += getString().hashCode(); break;
-            case Function: result += getFunction().hashCode(); break;
-            case Map:      result += getMap().hashCode(); break;
+            case Function: result += System.identityHashCode(getFunction()); break;
+            case Map:      result += System.identityHashCode(getMap()); break;
+            case List:     result += Arrays.hashCode(getList()); break;
             case Object:   result += getObject().hashCode(); break;
         }
 
@@ -140,11 +165,64 @@ public class Value {
                 Supplier<Value> s = getMap().getRaw("_toString");
                 return s == null ? "<map>" : s.get().toString();
             }
+            case List: {
+                StringBuilder sb = new StringBuilder();
+                appendTo(sb);
+                return sb.toString();
+            }
             case Object:   return getObject().toString();
             default:       return "";
         }
     }
 
+    /** Appends the same text as {@link #toString()} returns without creating intermediate strings where possible. Objects implementing {@link StarscriptAppendable} write their text directly. */
+    public void appendTo(StringBuilder sb) {
+        switch (type) {
+            case Null:     sb.append("null"); break;
+            case Boolean:  sb.append(getBool() ? "true" : "false"); break;
+            case Number:   appendNumber(sb, getNumber()); break;
+            case String: {
+                if (this instanceof VString) sb.append(((VString) this).string);
+                else {
+                    CharSequence chars = ((VCharSequence) this).chars;
+                    if (chars instanceof StarscriptAppendable) ((StarscriptAppendable) chars).appendTo(sb);
+                    else sb.append(chars);
+                }
+                break;
+            }
+            case Function: sb.append("<function>"); break;
+            case Map: {
+                Supplier<Value> s = getMap().getRaw("_toString");
+                if (s == null) sb.append("<map>");
+                else s.get().appendTo(sb);
+                break;
+            }
+            case List: {
+                Value[] values = getList();
+
+                sb.append('[');
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) sb.append(", ");
+                    values[i].appendTo(sb);
+                }
+                sb.append(']');
+                break;
+            }
+            case Object: {
+                java.lang.Object object = getObject();
+                if (object instanceof StarscriptAppendable) ((StarscriptAppendable) object).appendTo(sb);
+                else sb.append(object.toString());
+                break;
+            }
+        }
+    }
+
+    /** Appends a number formatted the same way as {@link #toString()} does, without creating a string for whole numbers. */
+    public static void appendNumber(StringBuilder sb, double number) {
+        if (number % 1 == 0) sb.append((int) number);
+        else sb.append(number);
+    }
+
     private static class Boolean extends Value {
         private final boolean bool;
 
@@ -172,6 +250,15 @@ public class Value {
         }
     }
 
+    private static class VCharSequence extends Value {
+        private final CharSequence chars;
+
+        private VCharSequence(CharSequence chars) {
+            super(ValueType.String);
+            this.chars = chars;
+        }
+    }
+
     private static class Function extends Value {
         private final SFunction function;
 
@@ -190,6 +277,15 @@ public class Value {
         }
     }
 
+    private static class List extends Value {
+        private final Value[] values;
+
+        public List(Value[] values) {
+            super(ValueType.List);
+            this.values = values;
+        }
+    }
+
     private static class Object extends Value {
         private final java.lang.Object object;
 
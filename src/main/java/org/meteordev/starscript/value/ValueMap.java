@@ -1,18 +1,43 @@
 package org.meteordev.starscript.value;
 
 import org.meteordev.starscript.compiler.Parser;
+import org.meteordev.starscript.utils.ChangeListener;
+import org.meteordev.starscript.utils.NumberFn1;
 import org.meteordev.starscript.utils.SFunction;
+import org.meteordev.starscript.utils.StringFn1;
 import org.meteordev.starscript.utils.StarscriptError;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Supplier;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.*;
 
-/** Simpler wrapper around a map that goes from {@link String} to {@link Supplier} for {@link Value}. */
+/**
+ * Simpler wrapper around a map that goes from {@link String} to {@link Supplier} for {@link Value}. <br><br>
+ *
+ * The contents are stored in a {@link Snapshot}, a small open addressing table that is read without locking. In thread safe maps single changes are written in place until the snapshot is handed out by {@link #snapshot()}, from then on it is immutable and the next change copies the table once. Multiple changes can be published together using {@link #update(Consumer)}. Maps that are only used from a single thread never lock or copy, see {@link #ValueMap(boolean)}.
+ */
 public class ValueMap {
-    private final Map<String, Supplier<Value>> values = new ConcurrentHashMap<>();
+    private static final ChangeListener[] NO_LISTENERS = new ChangeListener[0];
+
+    private final boolean threadSafe;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean frozen;
+    private volatile ChangeListener[] listeners = NO_LISTENERS;
+
+    private final Object transactionLock = new Object();
+    /** Number of transactions that checked this map and did not publish yet, guarded by the map lock. */
+    private int commits;
+
+    /** Creates a thread safe map. */
+    public ValueMap() {
+        this(true);
+    }
+
+    /** Creates a map. When threadSafe is false changes are applied in place without locking or copying, such maps must only be used from a single thread and their snapshots are not isolated from later changes. Maps created through dot notation use the same mode. */
+    public ValueMap(boolean threadSafe) {
+        this.threadSafe = threadSafe;
+    }
 
     /**
      * Sets a variable supplier for the provided name. <br><br>
@@ -33,21 +58,22 @@ public class ValueMap {
             Supplier<Value> valueSupplier = getRaw(name1);
 
             if (valueSupplier == null) {
-                map = new ValueMap();
-                setRaw(name1, () -> Value.map(map));
+                map = new ValueMap(threadSafe);
+                setRaw(name1, mapSupplier(map));
             }
             else {
                 Value value = valueSupplier.get();
 
                 if (value.isMap()) map = value.getMap();
                 else {
-                    map = new ValueMap();
-                    setRaw(name1, () -> Value.map(map));
+                    map = new ValueMap(threadSafe);
+                    setRaw(name1, mapSupplier(map));
                 }
             }
 
             // Set the supplier
             map.set(name2, supplier);
+            changed(name);
         }
         else setRaw(name, supplier);
 
@@ -56,7 +82,7 @@ public class ValueMap {
 
     /** Sets a variable supplier that always returns the same value for the provided name. <br><br> See {@link #set(String, Supplier)} for dot notation. */
     public ValueMap set(String name, Value value) {
-        set(name, () -> value);
+        set(name, new ConstantSupplier(value));
         return this;
     }
 
@@ -75,11 +101,41 @@ public class ValueMap {
         return set(name, Value.string(string));
     }
 
+    /** Sets a number variable supplier for the provided name, the number is appended to the output without creating a value. <br><br> See {@link #set(String, Supplier)} for dot notation. */
+    public ValueMap setNumber(String name, DoubleSupplier supplier) {
+        return set(name, new NumberSupplier(supplier));
+    }
+
+    /** Sets a number variable supplier for the provided name, the number is appended to the output without creating a value. <br><br> See {@link #set(String, Supplier)} for dot notation. */
+    public ValueMap setNumber(String name, IntSupplier supplier) {
+        return set(name, new NumberSupplier(supplier::getAsInt));
+    }
+
+    /** Sets a boolean variable supplier for the provided name, returns the shared true and false values so no value is created. <br><br> See {@link #set(String, Supplier)} for dot notation. */
+    public ValueMap setBool(String name, BooleanSupplier supplier) {
+        return set(name, () -> Value.bool(supplier.getAsBoolean()));
+    }
+
+    /** Sets a string variable supplier for the provided name, the string is appended to the output without creating a value. Named differently because it can't overload {@link #set(String, Supplier)}. <br><br> See {@link #set(String, Supplier)} for dot notation. */
+    public ValueMap setString(String name, Supplier<String> supplier) {
+        return set(name, new StringSupplier(supplier));
+    }
+
     /** Sets a function variable supplier that always returns the same value for the provided name. <br><br> See {@link #set(String, Supplier)} for dot notation. */
     public ValueMap set(String name, SFunction function) {
         return set(name, Value.function(function));
     }
 
+    /** Sets a typed function variable supplier that always returns the same value for the provided name. <br><br> See {@link #set(String, Supplier)} for dot notation. */
+    public ValueMap setNumberFunction(String name, NumberFn1 function) {
+        return set(name, Value.function(function));
+    }
+
+    /** Sets a typed function variable supplier that always returns the same value for the provided name. <br><br> See {@link #set(String, Supplier)} for dot notation. */
+    public ValueMap setStringFunction(String name, StringFn1 function) {
+        return set(name, Value.function(function));
+    }
+
     /** Sets a map variable supplier that always returns the same value for the provided name. <br><br> See {@link #set(String, Supplier)} for dot notation. */
     public ValueMap set(String name, ValueMap map) {
         return set(name, Value.map(map));
@@ -121,31 +177,214 @@ public class ValueMap {
 
     /** Gets the variable supplier for the provided name. */
     public Supplier<Value> getRaw(String name) {
-        return values.get(name);
+        return snapshot.getRaw(name);
     }
 
     /** Sets the variable supplier for the provided name. */
     public Supplier<Value> setRaw(String name, Supplier<Value> supplier) {
-        if (Parser.KEYWORDS.contains(name)) {
-            throw new StarscriptError("Variable name cannot be a keyword.");
+        checkName(name);
+        Supplier<Value> previous;
+
+        if (!threadSafe) previous = put(name, supplier);
+        else {
+            synchronized (this) {
+                previous = put(name, supplier);
+            }
         }
 
-        return values.put(name, supplier);
+        changed(name);
+        return previous;
     }
 
     /** Removes the variable supplier for the provided name. */
     public Supplier<Value> removeRaw(String name) {
-        return values.remove(name);
+        Supplier<Value> previous;
+
+        if (!threadSafe) previous = delete(name);
+        else {
+            synchronized (this) {
+                previous = delete(name);
+            }
+        }
+
+        if (previous != null) changed(name);
+        return previous;
+    }
+
+    private Supplier<Value> put(String name, Supplier<Value> supplier) {
+        Snapshot snapshot = writable(1);
+        Supplier<Value> previous = snapshot.put(name, supplier);
+
+        this.snapshot = snapshot;
+        return previous;
+    }
+
+    private Supplier<Value> delete(String name) {
+        if (snapshot.getRaw(name) == null) return null;
+
+        Snapshot snapshot = writable(0);
+        Supplier<Value> previous = snapshot.remove(name);
+
+        this.snapshot = snapshot;
+        return previous;
+    }
+
+    /** Returns the snapshot that changes can be written to, a copy if the current one was handed out. */
+    private Snapshot writable(int additional) {
+        if (frozen) throw new StarscriptError("Cannot change a frozen map.");
+
+        Snapshot snapshot = this.snapshot;
+        if (snapshot.shared || !snapshot.fits(additional)) snapshot = snapshot.copy(snapshot.size + additional);
+
+        return snapshot;
     }
 
     /** Returns a set of all variable names. */
     public Set<String> keys() {
-        return values.keySet();
+        return snapshot().keys();
     }
 
     /** Removes all values from this map. */
     public void clear() {
-        values.clear();
+        synchronized (this) {
+            if (frozen) throw new StarscriptError("Cannot change a frozen map.");
+            snapshot = Snapshot.EMPTY;
+        }
+
+        changed(null);
+    }
+
+    /** Returns the current contents of this map. For thread safe maps later changes are not visible in the returned snapshot. */
+    public Snapshot snapshot() {
+        Snapshot snapshot = this.snapshot;
+        if (!threadSafe || snapshot.shared) return snapshot;
+
+        synchronized (this) {
+            snapshot = this.snapshot;
+            snapshot.shared = true;
+
+            return snapshot;
+        }
+    }
+
+    /** Returns the current snapshot without handing it out, only its identity and version can be used. */
+    Snapshot current() {
+        return snapshot;
+    }
+
+    /** Returns true if changes to this map can be made from multiple threads, see {@link #ValueMap(boolean)}. */
+    public boolean isThreadSafe() {
+        return threadSafe;
+    }
+
+    /** Compacts this map into a read only layout where every name is found on the first probe, if possible. Any later change throws a {@link StarscriptError}. Nested maps are not frozen. */
+    public ValueMap freeze() {
+        boolean interrupted = false;
+
+        synchronized (this) {
+            // Transactions that already checked this map have to publish their changes first
+            while (commits > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            if (!frozen) {
+                snapshot = snapshot.compact();
+                snapshot.shared = true;
+                frozen = true;
+            }
+        }
+
+        if (interrupted) Thread.currentThread().interrupt();
+        return this;
+    }
+
+    /** Returns true if this map was frozen with {@link #freeze()}. */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Applies multiple changes at once. <br><br>
+     *
+     * Changes made through the {@link Transaction} are not visible until the action returns, then every changed map is copied once and published with all of its changes at once. Maps nested through dot notation are published before the maps containing them. All maps are checked before any of them is changed, if one of them is frozen nothing is changed. A reader that reads several of the changed maps can see some of them before and some after the transaction. Transactions on the same map run one at a time, reads are not blocked while the action runs.
+     */
+    public void update(Consumer<Transaction> action) {
+        synchronized (transactionLock) {
+            Transaction transaction = new Transaction(this);
+            action.accept(transaction);
+            transaction.commit();
+        }
+    }
+
+    private void apply(Map<String, Supplier<Value>> changes) {
+        synchronized (this) {
+            // Readers of thread safe maps do not lock so the changes are made to a copy
+            Snapshot snapshot = threadSafe ? this.snapshot.copy(this.snapshot.size + changes.size()) : writable(changes.size());
+
+            for (Map.Entry<String, Supplier<Value>> change : changes.entrySet()) {
+                if (change.getValue() == null) snapshot.remove(change.getKey());
+                else snapshot.put(change.getKey(), change.getValue());
+            }
+
+            this.snapshot = snapshot;
+        }
+    }
+
+    /** Fails if this map is frozen, otherwise keeps it from being frozen until {@link #release()}. */
+    private void reserve() {
+        synchronized (this) {
+            if (frozen) throw new StarscriptError("Cannot change a frozen map.");
+            commits++;
+        }
+    }
+
+    private void release() {
+        synchronized (this) {
+            if (--commits == 0) notifyAll();
+        }
+    }
+
+    /** Adds a listener that is called after every change made through this map, including changes to nested maps made with dot notation. Changes made directly to nested maps are only reported to their own listeners. */
+    public void addListener(ChangeListener listener) {
+        synchronized (this) {
+            ChangeListener[] listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+            listeners[listeners.length - 1] = listener;
+
+            this.listeners = listeners;
+        }
+    }
+
+    /** Removes a listener added with {@link #addListener(ChangeListener)}. */
+    public void removeListener(ChangeListener listener) {
+        synchronized (this) {
+            List<ChangeListener> listeners = new ArrayList<>(Arrays.asList(this.listeners));
+            listeners.remove(listener);
+
+            this.listeners = listeners.toArray(NO_LISTENERS);
+        }
+    }
+
+    /** Notifies listeners that the variable with the provided name changed without changing it, for example when a supplier will return a different value. */
+    public void markChanged(String name) {
+        changed(name);
+    }
+
+    private void changed(String name) {
+        for (ChangeListener listener : listeners) listener.onChange(name);
+    }
+
+    private static void checkName(String name) {
+        if (Parser.KEYWORDS.contains(name)) {
+            throw new StarscriptError("Variable name cannot be a keyword.");
+        }
+    }
+
+    private static Supplier<Value> mapSupplier(ValueMap map) {
+        return new ConstantSupplier(Value.map(map));
     }
 
     /**
@@ -169,9 +408,486 @@ public class ValueMap {
                 // Make sure the child value is a map
                 Value value = valueSupplier.get();
                 if (!value.isMap()) return removeRaw(name1);
-                else return value.getMap().remove(name2);
+
+                Supplier<Value> previous = value.getMap().remove(name2);
+                if (previous != null) changed(name);
+
+                return previous;
             }
         }
         else return removeRaw(name);
     }
+
+    // Paths
+
+    /** Sets a variable supplier for the provided path. <br><br> See {@link #set(String, Supplier)} for dot notation. */
+    public ValueMap set(ValuePath path, Supplier<Value> supplier) {
+        path.parent(this, true).setRaw(path.last(), supplier);
+        if (path.length() > 1) changed(path.toString());
+
+        return this;
+    }
+
+    /** Sets a variable supplier that always returns the same value for the provided path. <br><br> See {@link #set(String, Supplier)} for dot notation. */
+    public ValueMap set(ValuePath path, Value value) {
+        return set(path, new ConstantSupplier(value));
+    }
+
+    /** Sets a boolean variable supplier that always returns the same value for the provided path. <br><br> See {@link #set(String, Supplier)} for dot notation. */
+    public ValueMap set(ValuePath path, boolean bool) {
+        return set(path, Value.bool(bool));
+    }
+
+    /** Sets a number variable supplier that always returns the same value for the provided path. <br><br> See {@link #set(String, Supplier)} for dot notation. */
+    public ValueMap set(ValuePath path, double number) {
+        return set(path, Value.number(number));
+    }
+
+    /** Sets a string variable supplier that always returns the same value for the provided path. <br><br> See {@link #set(String, Supplier)} for dot notation. */
+    public ValueMap set(ValuePath path, String string) {
+        return set(path, Value.string(string));
+    }
+
+    /** Gets the variable supplier for the provided path. <br><br> See {@link #get(String)} for dot notation. */
+    public Supplier<Value> get(ValuePath path) {
+        ValueMap map = path.parent(this, false);
+        return map != null ? map.getRaw(path.last()) : null;
+    }
+
+    /** Removes a single value with the specified path and returns the removed value. <br><br> See {@link #remove(String)} for dot notation. */
+    public Supplier<Value> remove(ValuePath path) {
+        ValueMap map = path.parent(this, false);
+
+        if (map != null) {
+            Supplier<Value> previous = map.removeRaw(path.last());
+            if (previous != null && path.length() > 1) changed(path.toString());
+
+            return previous;
+        }
+
+        // Let the dot notation handle values that are not maps
+        return remove(path.toString());
+    }
+
+    // Pin
+
+    /** Snapshots of the maps read by a run, each taken the first time the map is read so the run sees every map unchanged while only paying for the maps it reads. The table is reused by every run, {@link #begin()} forgets the previous run without clearing it. */
+    public static final class Pin {
+        private ValueMap[] maps = new ValueMap[8];
+        private Snapshot[] snapshots = new Snapshot[8];
+        private int[] epochs = new int[8];
+
+        /** Slots recorded in a different epoch belong to an earlier run and count as empty. */
+        private int epoch = 1;
+        private int size;
+
+        /** Starts a new run, snapshots taken before are not returned anymore. */
+        public void begin() {
+            if (++epoch == 0) {
+                // Wrapped around, slots of old runs could be mistaken for current ones
+                Arrays.fill(epochs, 0);
+                epoch = 1;
+            }
+
+            size = 0;
+        }
+
+        /** Returns the snapshot of the provided map, taken the first time it was requested since {@link #begin()}. */
+        public Snapshot getSnapshot(ValueMap map) {
+            int i = slot(map);
+            if (epochs[i] == epoch) return snapshots[i];
+
+            if ((size + 1) * 2 > maps.length) {
+                grow();
+                i = slot(map);
+            }
+
+            Snapshot snapshot = map.snapshot();
+
+            maps[i] = map;
+            snapshots[i] = snapshot;
+            epochs[i] = epoch;
+            size++;
+
+            return snapshot;
+        }
+
+        /** Returns the slot of the map or the free slot where it would be recorded. */
+        private int slot(ValueMap map) {
+            int mask = maps.length - 1;
+            int i = System.identityHashCode(map) & mask;
+
+            while (epochs[i] == epoch && maps[i] != map) i = (i + 1) & mask;
+            return i;
+        }
+
+        private void grow() {
+            ValueMap[] maps = this.maps;
+            Snapshot[] snapshots = this.snapshots;
+            int[] epochs = this.epochs;
+
+            this.maps = new ValueMap[maps.length * 2];
+            this.snapshots = new Snapshot[maps.length * 2];
+            this.epochs = new int[maps.length * 2];
+
+            for (int i = 0; i < maps.length; i++) {
+                if (epochs[i] != epoch) continue;
+
+                int j = slot(maps[i]);
+                this.maps[j] = maps[i];
+                this.snapshots[j] = snapshots[i];
+                this.epochs[j] = epoch;
+            }
+        }
+    }
+
+    // Snapshot
+
+    /** Contents of a {@link ValueMap} stored in flat arrays using linear probing, immutable once handed out by a thread safe map. Names keep their slot when removed so lookups can run while a name is added or removed in place. */
+    public static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(1);
+
+        static {
+            EMPTY.shared = true;
+        }
+
+        private final String[] keys;
+        /** Read and written atomically so suppliers changed in place are safely published to readers that do not lock. */
+        private final AtomicReferenceArray<Supplier<Value>> values;
+        private int size;
+        /** Slots that hold a name, including removed names. */
+        private int used;
+
+        /** Incremented on every change, used together with the identity of the snapshot to validate caches. */
+        volatile int version;
+        /** Every name is stored at the slot its hash points to so lookups never need to probe further. */
+        private boolean perfect;
+        /** Handed out by {@link ValueMap#snapshot()}, changes have to be made to a copy. */
+        private volatile boolean shared;
+
+        private Snapshot(int capacity) {
+            this.keys = new String[capacity];
+            this.values = new AtomicReferenceArray<>(capacity);
+        }
+
+        /** Gets the variable supplier for the provided name. */
+        public Supplier<Value> getRaw(String name) {
+            String[] keys = this.keys;
+            int mask = keys.length - 1;
+            int i = hash(name) & mask;
+
+            String key;
+            while ((key = keys[i]) != null) {
+                if (key == name || key.equals(name)) return values.get(i);
+                if (perfect) return null;
+
+                i = (i + 1) & mask;
+            }
+
+            return null;
+        }
+
+        /** Returns a set of all variable names. */
+        public Set<String> keys() {
+            return new AbstractSet<String>() {
+                @Override
+                public Iterator<String> iterator() {
+                    return new Iterator<String>() {
+                        private int i = skip(0);
+
+                        private int skip(int i) {
+                            while (i < keys.length && (keys[i] == null || values.get(i) == null)) i++;
+                            return i;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < keys.length;
+                        }
+
+                        @Override
+                        public String next() {
+                            if (i >= keys.length) throw new NoSuchElementException();
+
+                            String key = keys[i];
+                            i = skip(i + 1);
+                            return key;
+                        }
+                    };
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    return o instanceof String && getRaw((String) o) != null;
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+
+        /** Returns the number of variables. */
+        public int size() {
+            return size;
+        }
+
+        /** Returns true if the provided number of names can be added without growing. */
+        private boolean fits(int additional) {
+            return (used + additional) * 2 <= keys.length;
+        }
+
+        /** Returns a copy without removed names that can hold the provided number of names. */
+        private Snapshot copy(int size) {
+            int capacity = keys.length;
+            while (capacity < size * 2) capacity <<= 1;
+
+            return rehash(capacity);
+        }
+
+        private Snapshot rehash(int capacity) {
+            Snapshot snapshot = new Snapshot(capacity);
+
+            for (int i = 0; i < keys.length; i++) {
+                Supplier<Value> value = values.get(i);
+                if (value != null) snapshot.put(keys[i], value);
+            }
+
+            return snapshot;
+        }
+
+        /** Returns a copy using the smallest table where no names collide, or a regular table if there is none up to 8 times larger. */
+        private Snapshot compact() {
+            if (size == 0) return EMPTY;
+
+            int capacity = 1;
+            while (capacity < size * 2) capacity <<= 1;
+
+            for (int c = capacity; c <= capacity * 8; c <<= 1) {
+                if (isPerfect(c)) {
+                    Snapshot snapshot = rehash(c);
+                    snapshot.perfect = true;
+                    return snapshot;
+                }
+            }
+
+            return rehash(capacity);
+        }
+
+        private boolean isPerfect(int capacity) {
+            boolean[] used = new boolean[capacity];
+
+            for (int j = 0; j < keys.length; j++) {
+                String key = keys[j];
+                if (key == null || values.get(j) == null) continue;
+
+                int i = hash(key) & (capacity - 1);
+                if (used[i]) return false;
+                used[i] = true;
+            }
+
+            return true;
+        }
+
+        private Supplier<Value> put(String name, Supplier<Value> supplier) {
+            int mask = keys.length - 1;
+            int i = hash(name) & mask;
+
+            String key;
+            while ((key = keys[i]) != null) {
+                if (key.equals(name)) {
+                    Supplier<Value> previous = values.get(i);
+                    values.set(i, supplier);
+
+                    if (previous == null) size++;
+                    version++;
+                    return previous;
+                }
+
+                i = (i + 1) & mask;
+            }
+
+            // The supplier is stored first so a reader finding the name never sees the slot's previous contents
+            values.set(i, supplier);
+            keys[i] = name;
+            size++;
+            used++;
+            version++;
+            return null;
+        }
+
+        private Supplier<Value> remove(String name) {
+            int mask = keys.length - 1;
+            int i = hash(name) & mask;
+
+            String key;
+            while ((key = keys[i]) != null) {
+                if (key.equals(name)) {
+                    Supplier<Value> previous = values.get(i);
+                    if (previous == null) return null;
+
+                    // The name keeps its slot so lookups of the names after it still find them
+                    values.set(i, null);
+                    size--;
+                    version++;
+                    return previous;
+                }
+
+                i = (i + 1) & mask;
+            }
+
+            return null;
+        }
+
+        private static int hash(String name) {
+            int h = name.hashCode();
+            return h ^ (h >>> 16);
+        }
+    }
+
+    // Transaction
+
+    /** Collects changes to a {@link ValueMap} and its nested maps that are published together, see {@link ValueMap#update(Consumer)}. */
+    public static class Transaction {
+        private final ValueMap root;
+        private final Map<ValueMap, Map<String, Supplier<Value>>> changes = new LinkedHashMap<>();
+        private final Set<String> paths = new LinkedHashSet<>();
+
+        private Transaction(ValueMap root) {
+            this.root = root;
+        }
+
+        /** Sets a variable supplier for the provided name. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+        public Transaction set(String name, Supplier<Value> supplier) {
+            set(root, name, supplier);
+            if (name.indexOf('.') >= 0) paths.add(name);
+
+            return this;
+        }
+
+        /** Sets a variable supplier that always returns the same value for the provided name. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+        public Transaction set(String name, Value value) {
+            return set(name, new ConstantSupplier(value));
+        }
+
+        /** Sets a boolean variable supplier that always returns the same value for the provided name. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+        public Transaction set(String name, boolean bool) {
+            return set(name, Value.bool(bool));
+        }
+
+        /** Sets a number variable supplier that always returns the same value for the provided name. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+        public Transaction set(String name, double number) {
+            return set(name, Value.number(number));
+        }
+
+        /** Sets a string variable supplier that always returns the same value for the provided name. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+        public Transaction set(String name, String string) {
+            return set(name, Value.string(string));
+        }
+
+        /** Sets a function variable supplier that always returns the same value for the provided name. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+        public Transaction set(String name, SFunction function) {
+            return set(name, Value.function(function));
+        }
+
+        /** Sets a map variable supplier that always returns the same value for the provided name. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+        public Transaction set(String name, ValueMap map) {
+            return set(name, Value.map(map));
+        }
+
+        /** Sets an object variable supplier that always returns the same value for the provided name. <br><br> See {@link ValueMap#set(String, Supplier)} for dot notation. */
+        public Transaction set(String name, Object object) {
+            return set(name, Value.object(object));
+        }
+
+        /** Removes a single value with the specified name. <br><br> See {@link ValueMap#remove(String)} for dot notation. */
+        public Transaction remove(String name) {
+            remove(root, name);
+            if (name.indexOf('.') >= 0) paths.add(name);
+
+            return this;
+        }
+
+        private void set(ValueMap map, String name, Supplier<Value> supplier) {
+            int dotI = name.indexOf('.');
+
+            if (dotI >= 0) {
+                // Split name based on the dot
+                String name1 = name.substring(0, dotI);
+                String name2 = name.substring(dotI + 1);
+
+                // Get the map
+                ValueMap child;
+                Supplier<Value> valueSupplier = get(map, name1);
+                Value value = valueSupplier != null ? valueSupplier.get() : null;
+
+                if (value != null && value.isMap()) child = value.getMap();
+                else {
+                    child = new ValueMap(map.threadSafe);
+                    stage(map, name1, mapSupplier(child));
+                }
+
+                // Set the supplier
+                set(child, name2, supplier);
+            }
+            else stage(map, name, supplier);
+        }
+
+        private void remove(ValueMap map, String name) {
+            int dotI = name.indexOf('.');
+
+            if (dotI >= 0) {
+                // Split name based on the dot
+                String name1 = name.substring(0, dotI);
+                String name2 = name.substring(dotI + 1);
+
+                // Get child value
+                Supplier<Value> valueSupplier = get(map, name1);
+                if (valueSupplier == null) return;
+
+                // Make sure the child value is a map
+                Value value = valueSupplier.get();
+                if (!value.isMap()) stage(map, name1, null);
+                else remove(value.getMap(), name2);
+            }
+            else stage(map, name, null);
+        }
+
+        private Supplier<Value> get(ValueMap map, String name) {
+            Map<String, Supplier<Value>> mapChanges = changes.get(map);
+            if (mapChanges != null && mapChanges.containsKey(name)) return mapChanges.get(name);
+
+            return map.getRaw(name);
+        }
+
+        private void stage(ValueMap map, String name, Supplier<Value> supplier) {
+            if (supplier != null) checkName(name);
+            changes.computeIfAbsent(map, k -> new HashMap<>()).put(name, supplier);
+        }
+
+        private void commit() {
+            List<Map.Entry<ValueMap, Map<String, Supplier<Value>>>> entries = new ArrayList<>(changes.entrySet());
+            int reserved = 0;
+
+            try {
+                // Names were checked when staged, a frozen map has to fail the transaction before anything is applied
+                for (; reserved < entries.size(); reserved++) entries.get(reserved).getKey().reserve();
+
+                // Nested maps are staged after the maps containing them
+                for (int i = entries.size() - 1; i >= 0; i--) {
+                    entries.get(i).getKey().apply(entries.get(i).getValue());
+                }
+            } finally {
+                for (int i = 0; i < reserved; i++) entries.get(i).getKey().release();
+            }
+
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                ValueMap map = entries.get(i).getKey();
+                for (String name : entries.get(i).getValue().keySet()) map.changed(name);
+            }
+
+            for (String path : paths) root.changed(path);
+        }
+    }
 }
@@ -0,0 +1,135 @@
+package org.meteordev.starscript.value;
+
+import java.util.function.Supplier;
+
+/**
+ * Dot notation name that is split only once, see {@link ValueMap#set(String, Supplier)}. <br><br>
+ *
+ * The maps along the path are cached for the last {@link ValueMap} it was used with. The cache is valid as long as none of the maps along the path were changed, so repeated access to the same path only compares a few snapshots and versions.
+ */
+public final class ValuePath {
+    private final String path;
+    private final String[] segments;
+
+    private volatile Cache cache;
+
+    private ValuePath(String path, String[] segments) {
+        this.path = path;
+        this.segments = segments;
+    }
+
+    /** Creates a path from a dot notation name, for example 'player.stats.speed'. */
+    public static ValuePath of(String path) {
+        String[] segments = path.split("\\.", -1);
+        for (int i = 0; i < segments.length; i++) segments[i] = segments[i].intern();
+
+        return new ValuePath(path, segments);
+    }
+
+    /** Returns the number of names in this path. */
+    public int length() {
+        return segments.length;
+    }
+
+    /** Returns the name at the provided index. */
+    public String get(int i) {
+        return segments[i];
+    }
+
+    /** Returns the last name in this path. */
+    public String last() {
+        return segments[segments.length - 1];
+    }
+
+    /** Returns the map containing the last name of this path or null if it does not exist. When create is true the missing maps are created the same way {@link ValueMap#set(String, Supplier)} does. */
+    ValueMap parent(ValueMap root, boolean create) {
+        Cache cache = this.cache;
+        if (cache != null && cache.root == root && cache.isValid()) return cache.maps[cache.maps.length - 1];
+
+        int count = segments.length - 1;
+        ValueMap[] maps = new ValueMap[count + 1];
+        ValueMap.Snapshot[] snapshots = new ValueMap.Snapshot[count];
+        int[] versions = new int[count];
+        boolean cacheable = true;
+
+        ValueMap map = root;
+        maps[0] = root;
+
+        for (int i = 0; i < count; i++) {
+            // Taken before reading so a change in between invalidates the cache
+            ValueMap.Snapshot snapshot = map.current();
+            int version = snapshot.version;
+
+            Supplier<Value> supplier = map.getRaw(segments[i]);
+            ValueMap child = null;
+
+            if (supplier instanceof ConstantSupplier) {
+                Value value = ((ConstantSupplier) supplier).value;
+                if (value.isMap()) child = value.getMap();
+            }
+            else if (supplier != null) {
+                // Other suppliers can return a different map every time
+                Value value = supplier.get();
+                if (value.isMap()) child = value.getMap();
+                cacheable = false;
+            }
+
+            if (child == null) {
+                if (!create) return null;
+
+                child = new ValueMap(map.isThreadSafe());
+                map.setRaw(segments[i], new ConstantSupplier(Value.map(child)));
+                cacheable = false;
+            }
+
+            snapshots[i] = snapshot;
+            versions[i] = version;
+            maps[i + 1] = child;
+            map = child;
+        }
+
+        if (cacheable) this.cache = new Cache(root, maps, snapshots, versions);
+        return map;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        return path.equals(((ValuePath) o).path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    private static class Cache {
+        public final ValueMap root;
+        public final ValueMap[] maps;
+        public final ValueMap.Snapshot[] snapshots;
+        public final int[] versions;
+
+        public Cache(ValueMap root, ValueMap[] maps, ValueMap.Snapshot[] snapshots, int[] versions) {
+            this.root = root;
+            this.maps = maps;
+            this.snapshots = snapshots;
+            this.versions = versions;
+        }
+
+        public boolean isValid() {
+            for (int i = 0; i < snapshots.length; i++) {
+                ValueMap.Snapshot snapshot = maps[i].current();
+                if (snapshot != snapshots[i] || snapshot.version != versions[i]) return false;
+            }
+
+            return true;
+        }
+    }
+}
@@ -7,5 +7,6 @@ public enum ValueType {
     String,
     Function,
     Map,
-    Object
+    Object,
+    List
 }
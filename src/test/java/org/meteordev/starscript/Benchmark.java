@@ -14,15 +14,23 @@ import java.util.Formatter;
 import java.util.concurrent.TimeUnit;
 
 /*
-Here are the results of the benchmark below ran on my machine with JDK 17.0.5
-
-Benchmark              Mode  Cnt  Score   Error   Units
-Benchmark.format      thrpt    3  1,417 � 0,766  ops/us
-Benchmark.formatter   thrpt    3  2,161 � 0,448  ops/us
-Benchmark.starscript  thrpt    3  7,423 � 1,771  ops/us
-Benchmark.format       avgt    3  0,707 � 0,262   us/op
-Benchmark.formatter    avgt    3  0,469 � 0,273   us/op
-Benchmark.starscript   avgt    3  0,141 � 0,051   us/op
+Here are the results of the benchmark below ran with JDK 17.0.9 on a single CPU with 5 measurement iterations, the errors are large because of it
+
+Benchmark                            Mode  Cnt  Score   Error   Units
+Benchmark.format                    thrpt    5  1.852 ± 0.660  ops/us
+Benchmark.formatter                 thrpt    5  1.642 ± 0.727  ops/us
+Benchmark.starscript                thrpt    5  6.497 ± 1.608  ops/us
+Benchmark.starscriptSections        thrpt    5  2.906 ± 0.649  ops/us
+Benchmark.starscriptSectionsResult  thrpt    5  2.704 ± 0.786  ops/us
+Benchmark.starscriptTemplate        thrpt    5  2.741 ± 1.054  ops/us
+Benchmark.starscriptTime            thrpt    5  8.326 ± 2.859  ops/us
+Benchmark.format                     avgt    5  0.400 ± 0.138   us/op
+Benchmark.formatter                  avgt    5  0.432 ± 0.094   us/op
+Benchmark.starscript                 avgt    5  0.172 ± 0.110   us/op
+Benchmark.starscriptSections         avgt    5  0.431 ± 0.348   us/op
+Benchmark.starscriptSectionsResult   avgt    5  0.342 ± 0.118   us/op
+Benchmark.starscriptTemplate         avgt    5  0.355 ± 0.223   us/op
+Benchmark.starscriptTime             avgt    5  0.114 ± 0.027   us/op
  */
 
 @BenchmarkMode({Mode.AverageTime, Mode.Throughput})
@@ -43,12 +51,19 @@ public class Benchmark {
 
     public final String formatSource = "FPS: %.0f";
     public final String starscriptSource = "FPS: {round(fps)}";
+    public final String templateSource = "Speed: {player.stats.speed} Debug: {debug ? 'on' : 'off'} Name: {pad(name, 16)}";
+    public final String timeSource = "{time}";
+    public final String sectionsSource = "FPS: {round(fps)} #1 Speed: {player.stats.speed} #2 Name: {name}";
 
     public StringBuilder sb;
 
     private Formatter formatter;
 
     public Script script;
+    public Script templateScript;
+    public Script timeScript;
+    public Script sectionsScript;
+    public RenderResult result;
     public Starscript ss;
 
     @Setup
@@ -60,11 +75,17 @@ public class Benchmark {
 
         // Starscript
         script = Compiler.compile(Parser.parse(starscriptSource));
+        templateScript = Compiler.compile(Parser.parse(templateSource));
+        timeScript = Compiler.compile(Parser.parse(timeSource));
+        sectionsScript = Compiler.compile(Parser.parse(sectionsSource));
+        result = new RenderResult();
 
         ss = new Starscript();
         StandardLib.init(ss);
         ss.set("name", "MineGame159");
         ss.set("fps", 59.68223);
+        ss.set("player.stats.speed", 4.3);
+        ss.set("debug", false);
     }
 
     @org.openjdk.jmh.annotations.Benchmark
@@ -82,4 +103,27 @@ public class Benchmark {
     public void starscript(Blackhole bh) {
         bh.consume(ss.run(script, sb).toString());
     }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public void starscriptTemplate(Blackhole bh) {
+        bh.consume(ss.run(templateScript, sb).toString());
+    }
+
+    // Outside of minute changes {time} only reads the cached value, run with '-prof gc' to see that it allocates nothing besides the output
+    @org.openjdk.jmh.annotations.Benchmark
+    public void starscriptTime(Blackhole bh) {
+        bh.consume(ss.run(timeScript, sb).toString());
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public void starscriptSections(Blackhole bh) {
+        bh.consume(ss.run(sectionsScript, sb));
+    }
+
+    // Sections are views over a reused buffer, run with '-prof gc' to compare the allocations with starscriptSections
+    @org.openjdk.jmh.annotations.Benchmark
+    public void starscriptSectionsResult(Blackhole bh) {
+        RenderResult result = ss.run(sectionsScript, this.result);
+        for (int i = 0; i < result.getSectionCount(); i++) bh.consume(result.getSection(i).length());
+    }
 }
@@ -0,0 +1,56 @@
+package org.meteordev.starscript;
+
+import org.meteordev.starscript.compiler.Compiler;
+import org.meteordev.starscript.compiler.Parser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/** Measures how {@link Compiler#compileAll} scales with the number of threads compared to compiling serially. Run through {@link Benchmark#main(String[])}. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class BulkCompileBenchmark {
+    private static final int TEMPLATES = 40_000;
+
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    public List<String> sources;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        sources = new ArrayList<>(TEMPLATES);
+
+        for (int i = 0; i < TEMPLATES; i++) {
+            int v = i % 40;
+            sources.add("Text " + v + ": {var" + v + "} {player.stat" + v + "} {round(fps + " + v + ")} {debug ? 'on' : 'off'}");
+        }
+
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public void serial(Blackhole bh) {
+        // Keeps every script like compileAll does so both retain the same amount of memory
+        List<Script> scripts = new ArrayList<>(sources.size());
+        for (String source : sources) scripts.add(Compiler.compile(Parser.parse(source)));
+
+        bh.consume(scripts);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public void compileAll(Blackhole bh) {
+        bh.consume(Compiler.compileAll(sources, pool));
+    }
+}
@@ -0,0 +1,47 @@
+package org.meteordev.starscript;
+
+import org.meteordev.starscript.compiler.Compiler;
+import org.meteordev.starscript.compiler.Parser;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** Measures how parsing and compiling scales with the size of generated templates. Run through {@link Benchmark#main(String[])}. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CompileBenchmark {
+    // Constant indexes are a single byte so the templates reuse a limited set of names and literals
+    private static final int VARIABLES = 40;
+
+    @Param({ "1000", "10000", "100000" })
+    public int nodes;
+
+    public String source;
+    public Parser.Result result;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+
+        // Every part has 10 nodes, 1 string, 3 blocks, 2 variables, 1 get, 1 call, 1 number and 1 binary
+        for (int i = 0; i < nodes / 10; i++) {
+            int v = i % VARIABLES;
+            sb.append("Text ").append(v).append(": {var").append(v).append("} {player.stat").append(v).append("} {round(fps + ").append(v).append(")}");
+        }
+
+        source = sb.toString();
+        result = Parser.parse(source);
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public void parse(Blackhole bh) {
+        bh.consume(Parser.parse(source));
+    }
+
+    @org.openjdk.jmh.annotations.Benchmark
+    public void compile(Blackhole bh) {
+        bh.consume(Compiler.compile(result));
+    }
+}
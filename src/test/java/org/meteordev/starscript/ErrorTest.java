@@ -0,0 +1,106 @@
+package org.meteordev.starscript;
+
+import org.meteordev.starscript.compiler.Compiler;
+import org.meteordev.starscript.compiler.Parser;
+import org.meteordev.starscript.utils.StarscriptError;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ErrorTest {
+    private Starscript ss;
+
+    @BeforeEach
+    public void setup() {
+        ss = new Starscript();
+        StandardLib.init(ss);
+
+        ss.set("name", "Steve");
+    }
+
+    @Test
+    public void errorsThrowByDefault() {
+        StarscriptError e = assertThrows(StarscriptError.class, () -> run("a {1 + 2} {'x' - 1} c"));
+
+        assertEquals(StarscriptError.Code.Type, e.getCode());
+        assertTrue(e.getMessage().startsWith("Can only subtract"), e.getMessage());
+        assertEquals(0, e.getStackTrace().length);
+    }
+
+    @Test
+    public void errorCodes() {
+        assertEquals(StarscriptError.Code.Type, codeOf("{-name}"));
+        assertEquals(StarscriptError.Code.NotCallable, codeOf("{name()}"));
+        assertEquals(StarscriptError.Code.NotCallable, codeOf("{nope(1)}"));
+        assertEquals(StarscriptError.Code.Argument, codeOf("{round('x')}"));
+    }
+
+    @Test
+    public void statusOfFailedRun() {
+        Script script = compile("a {'x' - 1} c");
+        assertThrows(StarscriptError.class, () -> ss.run(script));
+
+        RunStatus status = ss.getStatus();
+        assertFalse(status.isOk());
+        assertFalse(status.isPartial());
+        assertEquals(StarscriptError.Code.Type, status.getCode());
+        assertNotNull(status.getError());
+        assertEquals(status.getError().getMessage(), status.getMessage());
+
+        // The offset points at the failing instruction
+        assertEquals(Instruction.Subtract, Instruction.valueOf(script.code[status.getOffset()]));
+    }
+
+    @Test
+    public void statusIsResetBetweenRuns() {
+        assertThrows(StarscriptError.class, () -> run("{'x' - 1}"));
+        assertFalse(ss.getStatus().isOk());
+
+        assertEquals("fine", run("fine"));
+
+        RunStatus status = ss.getStatus();
+        assertTrue(status.isOk());
+        assertNull(status.getCode());
+        assertNull(status.getError());
+        assertNull(status.getMessage());
+        assertEquals(-1, status.getOffset());
+    }
+
+    @Test
+    public void errorPlaceholder() {
+        ss.setErrorPlaceholder("<err>");
+
+        // The run stops at the error
+        assertEquals("a 3 <err>", run("a {1 + 2} {'x' - 1} c"));
+        assertEquals(StarscriptError.Code.Type, ss.getStatus().getCode());
+
+        assertEquals("<err>", run("{round('x')} #1 {name}"));
+        assertEquals(StarscriptError.Code.Argument, ss.getStatus().getCode());
+
+        assertEquals("Steve", run("{name}"));
+        assertTrue(ss.getStatus().isOk());
+    }
+
+    @Test
+    public void apiErrorsHaveStackTraces() {
+        StarscriptError e = assertThrows(StarscriptError.class, () -> ss.set("null", 1));
+
+        assertEquals(StarscriptError.Code.Other, e.getCode());
+        assertTrue(e.getStackTrace().length > 0);
+    }
+
+    // Helpers
+
+    private StarscriptError.Code codeOf(String source) {
+        return assertThrows(StarscriptError.class, () -> run(source), source).getCode();
+    }
+
+    private String run(String source) {
+        return ss.run(compile(source)).toString();
+    }
+
+    private static Script compile(String source) {
+        return Compiler.compile(Parser.parse(source));
+    }
+}
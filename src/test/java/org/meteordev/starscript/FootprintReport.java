@@ -0,0 +1,55 @@
+package org.meteordev.starscript;
+
+import org.meteordev.starscript.compiler.Compiler;
+import org.meteordev.starscript.compiler.Parser;
+
+/** Prints the heap used by a large number of compiled scripts before and after compacting them and adding them to a {@link ScriptBundle}. */
+public class FootprintReport {
+    private static final int COUNT = 200_000;
+
+    private static final String[] TEMPLATES = {
+        "Name: {player.name}     Age: {player.age()}",
+        "FPS: {fps}   Ping: {ping} ms",
+        "{player.health > 10 ? 'healthy' : 'low'} {round(player.health, 1)}",
+        "Pos: {floor(camera.pos.x)} {floor(camera.pos.y)} {floor(camera.pos.z)}",
+        "Slot %d: {inventory.slot%d.name} x{inventory.slot%d.count}"
+    };
+
+    // Static so the scripts stay reachable while measuring, a local could be collected after its last use
+    private static Script[] scripts;
+
+    public static void main(String[] args) {
+        // Allocated before measuring so only the scripts are counted, the array alone takes 0.8 MB
+        scripts = new Script[COUNT];
+        long base = usedMemory();
+
+        for (int i = 0; i < COUNT; i++) {
+            String template = TEMPLATES[i % TEMPLATES.length];
+            int slot = i % 36;
+
+            scripts[i] = Compiler.compile(Parser.parse(template.replace("%d", Integer.toString(slot))));
+        }
+
+        long before = usedMemory() - base;
+
+        for (Script script : scripts) script.compact();
+        long compacted = usedMemory() - base;
+
+        ScriptBundle bundle = new ScriptBundle();
+        for (int i = 0; i < COUNT; i++) scripts[i] = bundle.add(scripts[i]);
+
+        long after = usedMemory() - base;
+
+        System.out.printf("Scripts:  %d added, %d distinct, %d constant pools, %d constants%n", bundle.getAdded(), bundle.size(), bundle.getPoolCount(), bundle.getValueCount());
+        System.out.printf("Before:   %.1f MB%n", before / 1024.0 / 1024.0);
+        System.out.printf("Compact:  %.1f MB%n", compacted / 1024.0 / 1024.0);
+        System.out.printf("Bundled:  %.1f MB%n", after / 1024.0 / 1024.0);
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
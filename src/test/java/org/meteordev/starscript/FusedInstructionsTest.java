@@ -0,0 +1,164 @@
+package org.meteordev.starscript;
+
+import org.meteordev.starscript.compiler.Compiler;
+import org.meteordev.starscript.compiler.Parser;
+import org.meteordev.starscript.optimizer.InstructionList;
+import org.meteordev.starscript.utils.StarscriptError;
+import org.meteordev.starscript.value.Value;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs the fused instructions against the unfused instruction sequences they replace. */
+public class FusedInstructionsTest {
+    private Starscript ss;
+
+    @BeforeEach
+    public void setup() {
+        ss = new Starscript();
+        StandardLib.init(ss);
+
+        ss.set("fps", 59.68);
+        ss.set("name", "Steve");
+        ss.set("a.b.c.d", "deep");
+        ss.set("a.b.x", 3);
+        ss.set("good", true);
+        ss.set("bad", false);
+    }
+
+    @Test
+    public void variablePath() {
+        Script fused = compile("{a.b.c.d}", Instruction.VariablePathAppend);
+        Script unfused = script(Instruction.Variable, "a", Instruction.Get, "b", Instruction.Get, "c", Instruction.Get, "d", Instruction.Append);
+        assertOutput("deep", fused, unfused);
+
+        fused = compile("{a.b.c.d + '!'}", Instruction.VariablePath);
+        unfused = script(Instruction.Variable, "a", Instruction.Get, "b", Instruction.Get, "c", Instruction.Get, "d", Instruction.AddConstant, "!", Instruction.Append);
+        assertOutput("deep!", fused, unfused);
+    }
+
+    @Test
+    public void variablePathThroughNonMap() {
+        Script fused = compile("{a.b.x.y.z}", Instruction.VariablePathAppend);
+        Script unfused = script(Instruction.Variable, "a", Instruction.Get, "b", Instruction.Get, "x", Instruction.Get, "y", Instruction.Get, "z", Instruction.Append);
+        assertOutput("null", fused, unfused);
+
+        fused = compile("{a.nope.c.d}", Instruction.VariablePathAppend);
+        unfused = script(Instruction.Variable, "a", Instruction.Get, "nope", Instruction.Get, "c", Instruction.Get, "d", Instruction.Append);
+        assertOutput("null", fused, unfused);
+    }
+
+    @Test
+    public void variableCallVariable() {
+        Script fused = compile("{round(fps)}", Instruction.VariableCallVariableAppend);
+        Script unfused = script(Instruction.Variable, "round", Instruction.Variable, "fps", Instruction.Call, 1, Instruction.Append);
+        assertOutput("60", fused, unfused);
+
+        fused = compile("{'' + round(fps)}", Instruction.VariableCallVariable);
+        assertEquals("60", run(fused));
+    }
+
+    @Test
+    public void variableCall() {
+        Script fused = compile("{round(1.25, 1)}", Instruction.VariableCallAppend);
+        Script unfused = script(Instruction.Variable, "round", Instruction.Constant, 1.25, Instruction.Constant, 1.0, Instruction.Call, 2, Instruction.Append);
+        assertOutput("1.3", fused, unfused);
+
+        fused = compile("{'' + round(1.25, 1)}", Instruction.VariableCall);
+        assertEquals("1.3", run(fused));
+    }
+
+    @Test
+    public void callWithVariableArgumentsIsNotFused() {
+        Script script = Compiler.compile(Parser.parse("{pad(name, 7)}"));
+
+        assertFalse(contains(script, Instruction.VariableCallAppend));
+        assertEquals("  Steve", run(script));
+    }
+
+    @Test
+    public void calleeIsLookedUpBeforeArguments() {
+        StringBuilder order = new StringBuilder();
+
+        ss.set("f", () -> { order.append('f'); return Value.function((s, argCount) -> { for (int i = 0; i < argCount; i++) s.pop(); return Value.string("r"); }); });
+        ss.set("x", () -> { order.append('x'); return Value.number(1); });
+        ss.set("y", () -> { order.append('y'); return Value.number(2); });
+
+        for (String source : new String[] { "{f(x)}", "{f(x, y)}", "{'' + f(x, y)}", "{f(x + 1)}", "{f(f(x))}" }) {
+            order.setLength(0);
+
+            assertEquals("r", run(Compiler.compile(Parser.parse(source))), source);
+            assertEquals('f', order.charAt(0), source);
+        }
+    }
+
+    @Test
+    public void callingNonFunction() {
+        Script fused = compile("{name(fps)}", Instruction.VariableCallVariableAppend);
+        Script unfused = script(Instruction.Variable, "name", Instruction.Variable, "fps", Instruction.Call, 1, Instruction.Append);
+
+        StarscriptError fusedError = assertThrows(StarscriptError.class, () -> run(fused));
+        StarscriptError unfusedError = assertThrows(StarscriptError.class, () -> run(unfused));
+        assertEquals(unfusedError.getMessage(), fusedError.getMessage());
+    }
+
+    @Test
+    public void conditionalConstant() {
+        Script fused = compile("{good ? 'yes' : 'no'}", Instruction.ConditionalConstantAppend);
+        assertEquals("yes", run(fused));
+
+        fused = compile("{bad ? 'yes' : 'no'}", Instruction.ConditionalConstantAppend);
+        assertEquals("no", run(fused));
+
+        fused = compile("{(good ? 'yes' : 'no') + '!'}", Instruction.ConditionalConstant);
+        assertEquals("yes!", run(fused));
+    }
+
+    // Helpers
+
+    private String run(Script script) {
+        return ss.run(script).toString();
+    }
+
+    private void assertOutput(String expected, Script fused, Script unfused) {
+        assertEquals(expected, run(unfused));
+        assertEquals(expected, run(fused));
+    }
+
+    private static Script compile(String source, Instruction expected) {
+        Script script = Compiler.compile(Parser.parse(source));
+        assertTrue(contains(script, expected), () -> source + " was not compiled to " + expected);
+
+        return script;
+    }
+
+    private static boolean contains(Script script, Instruction insn) {
+        for (InstructionList.Insn i : InstructionList.decode(script)) {
+            if (i.insn == insn) return true;
+        }
+
+        return false;
+    }
+
+    /** Builds a script from instructions, each one followed by its string or number constant or integer operand. */
+    private static Script script(Object... parts) {
+        Script script = new Script();
+
+        for (int i = 0; i < parts.length; i++) {
+            Instruction insn = (Instruction) parts[i];
+
+            if (i + 1 < parts.length && !(parts[i + 1] instanceof Instruction)) {
+                Object operand = parts[++i];
+
+                if (operand instanceof String) script.write(insn, Value.string((String) operand));
+                else if (operand instanceof Double) script.write(insn, Value.number((Double) operand));
+                else script.write(insn, (Integer) operand);
+            }
+            else script.write(insn);
+        }
+
+        script.write(Instruction.End);
+        return script;
+    }
+}
@@ -0,0 +1,90 @@
+package org.meteordev.starscript;
+
+import org.meteordev.starscript.compiler.Compiler;
+import org.meteordev.starscript.compiler.Parser;
+import org.meteordev.starscript.value.Value;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LimitsTest {
+    private Starscript ss;
+    private Script script;
+    private String full;
+
+    @BeforeEach
+    public void setup() {
+        ss = new Starscript();
+        StandardLib.init(ss);
+
+        script = Compiler.compile(Parser.parse("hello {1 + 2} world {'abc'} #1 second"));
+        full = ss.run(script).toString();
+    }
+
+    @Test
+    public void unlimited() {
+        assertEquals("hello 3 world abc  second", full);
+        assertFalse(ss.getStatus().isPartial());
+        assertNull(ss.getStatus().getLimit());
+    }
+
+    @Test
+    public void outputLimit() {
+        ss.setOutputLimit(8);
+
+        assertEquals(full.substring(0, 8), ss.run(script).toString());
+        assertTrue(ss.getStatus().isPartial());
+        assertTrue(ss.getStatus().isOk());
+        assertEquals(RunStatus.Limit.Output, ss.getStatus().getLimit());
+    }
+
+    @Test
+    public void outputLimitCountsAllSections() {
+        ss.setOutputLimit(20);
+
+        RenderResult result = ss.run(script, new RenderResult());
+        assertEquals(RunStatus.Limit.Output, ss.getStatus().getLimit());
+        assertTrue(result.length() <= 20);
+    }
+
+    @Test
+    public void instructionLimit() {
+        ss.setInstructionLimit(2);
+
+        String out = ss.run(script).toString();
+        assertTrue(full.startsWith(out), out);
+        assertTrue(out.length() < full.length(), out);
+        assertTrue(ss.getStatus().isOk());
+        assertEquals(RunStatus.Limit.Instructions, ss.getStatus().getLimit());
+    }
+
+    @Test
+    public void timeLimit() {
+        ss.set("f", (ss, argCount) -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException ignored) {}
+
+            return Value.string("y");
+        });
+        ss.setTimeLimit(5_000_000);
+
+        // The time is checked before calls so the first call always runs
+        assertEquals("y", ss.run(Compiler.compile(Parser.parse("{f()}{f()}{f()}"))).toString());
+        assertEquals(RunStatus.Limit.Time, ss.getStatus().getLimit());
+    }
+
+    @Test
+    public void disablingLimits() {
+        ss.setOutputLimit(8);
+        ss.setInstructionLimit(2);
+        ss.run(script);
+
+        ss.setOutputLimit(0);
+        ss.setInstructionLimit(0);
+
+        assertEquals(full, ss.run(script).toString());
+        assertFalse(ss.getStatus().isPartial());
+    }
+}
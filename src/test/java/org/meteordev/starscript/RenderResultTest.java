@@ -0,0 +1,132 @@
+package org.meteordev.starscript;
+
+import org.meteordev.starscript.compiler.Compiler;
+import org.meteordev.starscript.compiler.Parser;
+import org.meteordev.starscript.utils.StarscriptError;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RenderResultTest {
+    private Starscript ss;
+    private Script script;
+
+    @BeforeEach
+    public void setup() {
+        ss = new Starscript();
+        ss.set("x", 5);
+
+        script = compile("a {x} #1 b {x}");
+    }
+
+    @Test
+    public void sections() {
+        RenderResult result = ss.run(script, new RenderResult());
+
+        assertEquals("a 5  b 5", result.toString());
+        assertEquals(2, result.getSectionCount());
+        assertEquals(0, result.getSectionIndex(0));
+        assertEquals(1, result.getSectionIndex(1));
+        assertEquals("a 5 ", result.getSection(0).toString());
+        assertEquals(" b 5", result.getSection(1).toString());
+        assertEquals(result.getSectionStart(1), result.getSectionEnd(0));
+    }
+
+    @Test
+    public void firstRunHasChanged() {
+        RenderResult result = new RenderResult(true);
+        ss.run(script, result);
+
+        assertTrue(result.hasChanged());
+        assertEquals("a 5  b 5".hashCode(), result.getHash());
+    }
+
+    @Test
+    public void sameOutputHasNotChanged() {
+        RenderResult result = new RenderResult(true);
+        ss.run(script, result);
+        ss.run(script, result);
+
+        assertFalse(result.hasChanged());
+        assertEquals("a 5  b 5".hashCode(), result.getHash());
+    }
+
+    @Test
+    public void changedVariable() {
+        RenderResult result = new RenderResult(true);
+        ss.run(script, result);
+
+        ss.set("x", 6);
+        ss.run(script, result);
+        assertTrue(result.hasChanged());
+        assertEquals("a 6  b 6", result.toString());
+        assertEquals("a 6  b 6".hashCode(), result.getHash());
+
+        ss.run(script, result);
+        assertFalse(result.hasChanged());
+    }
+
+    @Test
+    public void sameLengthDifferentText() {
+        RenderResult result = new RenderResult(true);
+        ss.run(script, result);
+
+        ss.set("x", 7);
+        ss.run(script, result);
+        assertTrue(result.hasChanged());
+    }
+
+    @Test
+    public void sameTextDifferentSections() {
+        RenderResult result = new RenderResult(true);
+        ss.run(compile("a 6 #1  b 6"), result);
+        ss.run(compile("a 6 #2  b 6"), result);
+        assertTrue(result.hasChanged());
+
+        ss.run(compile("a 6  b 6"), result);
+        assertTrue(result.hasChanged());
+    }
+
+    @Test
+    public void manySections() {
+        RenderResult result = new RenderResult(true);
+        Script many = compile("#1 a #2 b #3 c #4 d #5 e #6 f {x}");
+
+        ss.run(many, result);
+        ss.run(many, result);
+        assertFalse(result.hasChanged());
+        assertEquals(7, result.getSectionCount());
+
+        ss.set("x", 6);
+        ss.run(many, result);
+        assertTrue(result.hasChanged());
+    }
+
+    @Test
+    public void failedRunHasChanged() {
+        RenderResult result = new RenderResult(true);
+        ss.run(script, result);
+
+        assertThrows(StarscriptError.class, () -> ss.run(compile("a {x} {x - 'y'}"), result));
+        assertTrue(result.hasChanged());
+
+        ss.run(script, result);
+        assertTrue(result.hasChanged());
+    }
+
+    @Test
+    public void withoutTrackingAlwaysChanged() {
+        RenderResult result = new RenderResult();
+        ss.run(script, result);
+        ss.run(script, result);
+
+        assertFalse(result.isTrackingChanges());
+        assertTrue(result.hasChanged());
+        assertEquals("a 5  b 5".hashCode(), result.getHash());
+    }
+
+    private static Script compile(String source) {
+        return Compiler.compile(Parser.parse(source));
+    }
+}
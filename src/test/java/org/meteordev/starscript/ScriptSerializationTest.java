@@ -0,0 +1,112 @@
+package org.meteordev.starscript;
+
+import org.meteordev.starscript.compiler.Compiler;
+import org.meteordev.starscript.compiler.Parser;
+import org.meteordev.starscript.optimizer.ScriptOptimizer;
+import org.meteordev.starscript.value.Value;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScriptSerializationTest {
+    private static final String[] SOURCES = {
+            "plain text",
+            "a {x + 1} {'s'} {true} {null} {-1.5}",
+            "{good ? name : 'x'} {bad ? 'yes' : 'no'}",
+            "{good and name or 'z'}",
+            "{p.q.r} {round(x)} {round(1.25, 1)} {pad(name, 7)}",
+            "{'HP: ' + x + '/' + 20}",
+            "#1 first #2 {name} #3 {x * 2}",
+    };
+
+    private Starscript ss;
+
+    @BeforeEach
+    public void setup() {
+        ss = new Starscript();
+        StandardLib.init(ss);
+
+        ss.set("x", 2);
+        ss.set("name", "Steve");
+        ss.set("good", true);
+        ss.set("bad", false);
+        ss.set("p.q.r", "deep");
+    }
+
+    @Test
+    public void roundTrip() {
+        for (String source : SOURCES) {
+            Script script = Compiler.compile(Parser.parse(source));
+            Script loaded = Script.fromBytes(script.toBytes());
+
+            assertArrayEquals(Arrays.copyOf(script.code, script.getSize()), loaded.code, source);
+            assertEquals(script.constants, loaded.constants, source);
+            assertEquals(ss.run(script).toString(), ss.run(loaded).toString(), source);
+            assertTrue(loaded.isCompact(), source);
+        }
+    }
+
+    @Test
+    public void roundTripOptimized() {
+        ScriptOptimizer optimizer = ScriptOptimizer.standard(ScriptOptimizer.LEVEL_FULL);
+
+        for (String source : SOURCES) {
+            Script script = optimizer.optimize(Compiler.compile(Parser.parse(source)));
+            Script loaded = Script.fromBytes(script.toBytes());
+
+            assertEquals(ss.run(script).toString(), ss.run(loaded).toString(), source);
+        }
+    }
+
+    @Test
+    public void loadedScriptCanBeWritten() {
+        Script loaded = Script.fromBytes(Compiler.compile(Parser.parse("{x}")).toBytes());
+        int size = loaded.constants.size();
+
+        loaded.write(Instruction.ConstantAppend, Value.string("!"));
+
+        assertEquals(size + 1, loaded.constants.size());
+        assertFalse(loaded.isCompact());
+    }
+
+    @Test
+    public void differentInstructionSetIsRejected() {
+        byte[] bytes = Compiler.compile(Parser.parse("{x}")).toBytes();
+        bytes[2] ^= 1;
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Script.fromBytes(bytes));
+        assertTrue(e.getCause().getMessage().contains("instruction set"), e.getCause().getMessage());
+    }
+
+    @Test
+    public void unknownVersionIsRejected() {
+        byte[] bytes = Compiler.compile(Parser.parse("{x}")).toBytes();
+        bytes[0] = 99;
+
+        IOException e = assertThrows(IOException.class, () -> Script.load(new DataInputStream(new ByteArrayInputStream(bytes))));
+        assertTrue(e.getMessage().contains("version"), e.getMessage());
+    }
+
+    @Test
+    public void truncatedDataIsRejected() {
+        byte[] bytes = Compiler.compile(Parser.parse("a {x + 1} {'s'}")).toBytes();
+
+        assertThrows(IllegalArgumentException.class, () -> Script.fromBytes(Arrays.copyOf(bytes, bytes.length - 2)));
+    }
+
+    @Test
+    public void unsupportedConstantsAreNotSaved() {
+        Script script = new Script();
+        script.write(Instruction.Constant, Value.function((ss, argCount) -> Value.null_()));
+        script.write(Instruction.Append);
+        script.write(Instruction.End);
+
+        assertThrows(IllegalStateException.class, script::toBytes);
+    }
+}
@@ -0,0 +1,120 @@
+package org.meteordev.starscript.compiler;
+
+import org.meteordev.starscript.Script;
+import org.meteordev.starscript.Starscript;
+import org.meteordev.starscript.TemplateRepository;
+import org.meteordev.starscript.utils.Error;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompileAllTest {
+    @Test
+    public void resultsAreInSourceOrder() {
+        Starscript ss = new Starscript();
+        ss.set("x", 2);
+
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < 500; i++) sources.add(i + ": {x + " + i + "}");
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            List<Compiler.Compiled> compiled = Compiler.compileAll(sources, pool);
+            assertEquals(sources.size(), compiled.size());
+
+            for (int i = 0; i < sources.size(); i++) {
+                assertFalse(compiled.get(i).hasErrors());
+                assertEquals(i + ": " + (i + 2), ss.run(compiled.get(i).script).toString());
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void sameAsCompilingOneByOne() {
+        List<String> sources = Arrays.asList("a {b.c.d}", "{round(x)}", "{good ? 'yes' : 'no'}", "#1 a #2 {'x' + y}", "");
+        List<Compiler.Compiled> compiled = Compiler.compileAll(sources);
+
+        for (int i = 0; i < sources.size(); i++) {
+            Script expected = Compiler.compile(Parser.parse(sources.get(i)));
+            Script actual = compiled.get(i).script;
+
+            assertArrayEquals(Arrays.copyOf(expected.code, expected.getSize()), Arrays.copyOf(actual.code, actual.getSize()), sources.get(i));
+            assertEquals(expected.constants, actual.constants, sources.get(i));
+        }
+    }
+
+    @Test
+    public void parseErrorsStayInTheirSource() {
+        List<Compiler.Compiled> compiled = Compiler.compileAll(Arrays.asList("ok {x}", "bad {", "ok {y}", "bad {1 +}"));
+
+        assertFalse(compiled.get(0).hasErrors());
+        assertNotNull(compiled.get(0).script);
+
+        assertTrue(compiled.get(1).hasErrors());
+        assertNull(compiled.get(1).script);
+
+        assertFalse(compiled.get(2).hasErrors());
+        assertNotNull(compiled.get(2).script);
+
+        assertTrue(compiled.get(3).hasErrors());
+        assertNull(compiled.get(3).script);
+    }
+
+    @Test
+    public void oversizedSourceIsReportedAsError() {
+        String oversized = "first line\n" + constants(300);
+        List<Compiler.Compiled> compiled = Compiler.compileAll(Arrays.asList("ok {x}", oversized, "ok {y}"));
+
+        assertFalse(compiled.get(0).hasErrors());
+        assertFalse(compiled.get(2).hasErrors());
+
+        Compiler.Compiled result = compiled.get(1);
+        assertNull(result.script);
+        assertEquals(1, result.errors.size());
+
+        Error error = result.errors.get(0);
+        assertEquals(2, error.line);
+        assertEquals('{', error.ch);
+        assertTrue(error.message.contains(String.valueOf(Script.MAX_CONSTANTS)), error.message);
+
+        // Same error when compiling a single source
+        assertEquals(error.message, Compiler.compileSource(oversized).errors.get(0).message);
+        assertThrows(IllegalStateException.class, () -> Compiler.compile(Parser.parse(oversized)));
+    }
+
+    @Test
+    public void repositoryReportsOversizedSource(@TempDir Path directory) throws IOException {
+        Files.write(directory.resolve("big.sss"), constants(300).getBytes(StandardCharsets.UTF_8));
+        Files.write(directory.resolve("ok.sss"), "ok".getBytes(StandardCharsets.UTF_8));
+
+        TemplateRepository repository = new TemplateRepository(directory, ".sss");
+        repository.load();
+
+        TemplateRepository.Entry entry = repository.getEntry("big.sss");
+        assertTrue(entry.hasErrors());
+        assertNull(entry.script);
+        assertNotNull(repository.get("ok.sss"));
+    }
+
+    /** Returns a source with the provided number of different string constants. */
+    private static String constants(int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) sb.append("{'c").append(i).append("'}");
+
+        return sb.toString();
+    }
+}
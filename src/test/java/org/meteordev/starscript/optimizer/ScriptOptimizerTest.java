@@ -0,0 +1,197 @@
+package org.meteordev.starscript.optimizer;
+
+import org.meteordev.starscript.Instruction;
+import org.meteordev.starscript.Script;
+import org.meteordev.starscript.StandardLib;
+import org.meteordev.starscript.Starscript;
+import org.meteordev.starscript.compiler.Compiler;
+import org.meteordev.starscript.compiler.Parser;
+import org.meteordev.starscript.value.Value;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs every built-in pass on its own and checks that the optimized script produces the same output. */
+public class ScriptOptimizerTest {
+    private Starscript ss;
+
+    @BeforeEach
+    public void setup() {
+        ss = new Starscript();
+        StandardLib.init(ss);
+
+        ss.set("name", "Steve");
+        ss.set("good", true);
+        ss.set("fps", 60.5);
+    }
+
+    @Test
+    public void constantAppendMerge() {
+        Script script = compile("a{'b'}c{''}{'d'}");
+        Script optimized = optimize(script, new ConstantAppendMergePass());
+
+        assertEquals(Arrays.asList(Instruction.ConstantAppend, Instruction.End), instructions(optimized));
+        assertEquals(Arrays.asList(Value.string("abcd")), optimized.constants);
+        assertSameOutput(script, optimized);
+    }
+
+    @Test
+    public void constantAppendMergeStopsAtVariables() {
+        Script script = compile("a{'b'}{name}c{'d'}");
+        Script optimized = optimize(script, new ConstantAppendMergePass());
+
+        assertEquals(Arrays.asList(Instruction.ConstantAppend, Instruction.VariableAppend, Instruction.ConstantAppend, Instruction.End), instructions(optimized));
+        assertSameOutput(script, optimized);
+    }
+
+    @Test
+    public void constantPop() {
+        Script script = new Script();
+        script.write(Instruction.Constant, Value.number(1));
+        script.write(Instruction.Pop);
+        script.write(Instruction.True);
+        script.write(Instruction.Pop);
+        script.write(Instruction.ConstantAppend, Value.string("x"));
+        script.write(Instruction.End);
+
+        Script optimized = optimize(script, new ConstantPopPass());
+
+        assertEquals(Arrays.asList(Instruction.ConstantAppend, Instruction.End), instructions(optimized));
+        assertEquals(Arrays.asList(Value.string("x")), optimized.constants);
+        assertSameOutput(script, optimized);
+    }
+
+    @Test
+    public void constantCondition() {
+        for (String source : new String[] { "{true ? 'a' : 'b'}", "{(false ? 'a' : 'b') + '!'}", "{1 < 2}", "{'a' == 'b'}", "{!null}", "{false and name}", "{true or name}", "{null or name}" }) {
+            Script script = compile(source);
+            Script optimized = optimize(script, new ConstantConditionPass());
+
+            for (Instruction insn : instructions(optimized)) {
+                assertFalse(insn == Instruction.JumpIfTrue || insn == Instruction.JumpIfFalse || insn == Instruction.Less || insn == Instruction.Equals || insn == Instruction.Not || insn == Instruction.ConditionalConstant || insn == Instruction.ConditionalConstantAppend, () -> source + " still has " + insn);
+            }
+
+            assertSameOutput(script, optimized);
+        }
+    }
+
+    @Test
+    public void constantConditionKeepsRuntimeErrors() {
+        Script script = compile("{'a' < 1}");
+        Script optimized = optimize(script, new ConstantConditionPass());
+
+        assertTrue(instructions(optimized).contains(Instruction.Less));
+    }
+
+    @Test
+    public void jumpThreading() {
+        // Jump -> Jump -> ConstantAppend 'end'
+        Script script = new Script();
+        int first = script.writeJump(Instruction.Jump);
+        script.write(Instruction.ConstantAppend, Value.string("skipped"));
+        script.patchJump(first);
+        int second = script.writeJump(Instruction.Jump);
+        script.write(Instruction.ConstantAppend, Value.string("skipped too"));
+        script.patchJump(second);
+        script.write(Instruction.ConstantAppend, Value.string("end"));
+        script.write(Instruction.End);
+
+        InstructionList insns = InstructionList.decode(script);
+        new JumpThreadingPass().run(insns);
+
+        assertSame(insns.get(insns.size() - 2), insns.get(0).target);
+        assertSameOutput(script, insns.encode());
+    }
+
+    @Test
+    public void jumpThreadingReplacesJumpsToEnd() {
+        Script script = new Script();
+        int jump = script.writeJump(Instruction.Jump);
+        script.write(Instruction.ConstantAppend, Value.string("skipped"));
+        script.patchJump(jump);
+        script.write(Instruction.End);
+
+        Script optimized = optimize(script, new JumpThreadingPass());
+
+        assertEquals(Instruction.End, instructions(optimized).get(0));
+        assertSameOutput(script, optimized);
+    }
+
+    @Test
+    public void unreachableCode() {
+        Script script = new Script();
+        int jump = script.writeJump(Instruction.Jump);
+        script.write(Instruction.ConstantAppend, Value.string("dead"));
+        script.patchJump(jump);
+        script.write(Instruction.ConstantAppend, Value.string("live"));
+        script.write(Instruction.End);
+
+        Script optimized = optimize(script, new UnreachableCodePass());
+
+        assertFalse(optimized.constants.contains(Value.string("dead")));
+        assertSameOutput(script, optimized);
+    }
+
+    @Test
+    public void standardPipeline() {
+        for (String source : new String[] { "Hello {'a'}{'b'} {name}{''}!", "{good ? name : 'x'}", "{(good ? false : good) ? name : fps}", "{good and name or 'z'}", "{null or false or good}", "#1 {round(fps)} #2 {1 + 2}" }) {
+            Script script = compile(source);
+            Script optimized = ScriptOptimizer.standard(ScriptOptimizer.LEVEL_FULL).optimize(script);
+
+            assertTrue(optimized.getSize() <= script.getSize(), source);
+            assertSameOutput(script, optimized);
+        }
+    }
+
+    @Test
+    public void levels() {
+        Script script = compile("{true ? 'a' : 'b'}{'c'}");
+
+        assertSame(script, ScriptOptimizer.standard(ScriptOptimizer.LEVEL_NONE).optimize(script));
+
+        // Conditions are only folded at the full level
+        Script basic = ScriptOptimizer.standard(ScriptOptimizer.LEVEL_BASIC).optimize(script);
+        assertTrue(instructions(basic).contains(Instruction.ConditionalConstantAppend));
+
+        Script full = ScriptOptimizer.standard(ScriptOptimizer.LEVEL_FULL).optimize(script);
+        assertEquals(Arrays.asList(Instruction.ConstantAppend, Instruction.End), instructions(full));
+    }
+
+    @Test
+    public void inputIsNotModified() {
+        Script script = compile("a{'b'}c");
+        byte[] code = Arrays.copyOf(script.code, script.getSize());
+        List<Value> constants = new ArrayList<>(script.constants);
+
+        ScriptOptimizer.standard(ScriptOptimizer.LEVEL_FULL).optimize(script);
+
+        assertArrayEquals(code, Arrays.copyOf(script.code, script.getSize()));
+        assertEquals(constants, script.constants);
+    }
+
+    // Helpers
+
+    private void assertSameOutput(Script expected, Script actual) {
+        assertEquals(ss.run(expected).toString(), ss.run(actual).toString());
+    }
+
+    private static Script compile(String source) {
+        return Compiler.compile(Parser.parse(source));
+    }
+
+    private static Script optimize(Script script, OptimizationPass pass) {
+        return new ScriptOptimizer(ScriptOptimizer.LEVEL_FULL).addPass(ScriptOptimizer.LEVEL_BASIC, pass).optimize(script);
+    }
+
+    private static List<Instruction> instructions(Script script) {
+        List<Instruction> instructions = new ArrayList<>();
+        for (InstructionList.Insn insn : InstructionList.decode(script)) instructions.add(insn.insn);
+
+        return instructions;
+    }
+}
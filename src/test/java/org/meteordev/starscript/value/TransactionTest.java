@@ -0,0 +1,136 @@
+package org.meteordev.starscript.value;
+
+import org.meteordev.starscript.Script;
+import org.meteordev.starscript.Starscript;
+import org.meteordev.starscript.compiler.Compiler;
+import org.meteordev.starscript.compiler.Parser;
+import org.meteordev.starscript.utils.StarscriptError;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionTest {
+    @Test
+    public void changesAreInvisibleUntilCommitted() {
+        ValueMap map = new ValueMap();
+        map.set("a", 1);
+        map.set("p.x", 1);
+
+        map.update(tx -> {
+            tx.set("a", 2).set("b", 3).set("p.x", 4).remove("c");
+
+            assertEquals(1, map.get("a").get().getNumber());
+            assertNull(map.getRaw("b"));
+            assertEquals(1, map.get("p.x").get().getNumber());
+        });
+
+        assertEquals(2, map.get("a").get().getNumber());
+        assertEquals(3, map.get("b").get().getNumber());
+        assertEquals(4, map.get("p.x").get().getNumber());
+    }
+
+    @Test
+    public void snapshotsAreIsolated() {
+        ValueMap map = new ValueMap();
+        map.set("a", 1);
+
+        ValueMap.Snapshot before = map.snapshot();
+        map.update(tx -> tx.set("a", 2).set("b", 3));
+
+        assertEquals(1, before.getRaw("a").get().getNumber());
+        assertNull(before.getRaw("b"));
+        assertEquals(1, before.size());
+    }
+
+    @Test
+    public void frozenMapFailsWholeTransaction() {
+        ValueMap map = new ValueMap();
+        map.set("a", 1);
+        map.set("frozen.x", 1);
+        map.get("frozen").get().getMap().freeze();
+
+        assertThrows(StarscriptError.class, () -> map.update(tx -> tx.set("a", 2).set("b", 3).set("frozen.x", 2)));
+
+        assertEquals(1, map.get("a").get().getNumber());
+        assertNull(map.getRaw("b"));
+        assertEquals(1, map.get("frozen.x").get().getNumber());
+    }
+
+    @Test
+    public void failingActionChangesNothing() {
+        ValueMap map = new ValueMap();
+        map.set("a", 1);
+
+        assertThrows(IllegalStateException.class, () -> map.update(tx -> {
+            tx.set("a", 2);
+            throw new IllegalStateException();
+        }));
+
+        assertEquals(1, map.get("a").get().getNumber());
+    }
+
+    @Test
+    public void keywordsAreRejectedBeforeAnythingIsApplied() {
+        ValueMap map = new ValueMap();
+
+        assertThrows(StarscriptError.class, () -> map.update(tx -> tx.set("a", 1).set("null", 2)));
+        assertNull(map.getRaw("a"));
+    }
+
+    @Test
+    public void listenersAreNotifiedAfterPublishing() {
+        ValueMap map = new ValueMap();
+        List<String> changes = new ArrayList<>();
+
+        map.addListener(name -> {
+            // Every change is already visible when the first listener runs
+            assertNotNull(map.getRaw("b"));
+            changes.add(name);
+        });
+
+        map.update(tx -> tx.set("a", 1).set("b", 2).set("p.x", 3));
+
+        assertTrue(changes.containsAll(Arrays.asList("a", "b", "p", "p.x")), changes::toString);
+    }
+
+    @Test
+    public void runsSeeWholeTransactions() throws InterruptedException {
+        Starscript ss = new Starscript();
+        ss.set("a", 0);
+        ss.set("p.b", 0);
+        ss.set("p.c", 0);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            for (int i = 1; running.get(); i++) {
+                int value = i;
+                ss.update(tx -> tx.set("a", value).set("p.b", value).set("p.c", value));
+            }
+        });
+        writer.start();
+
+        try {
+            // Variables of a single map are read from one snapshot for the whole run
+            Script script = Compiler.compile(Parser.parse("{a} {a}|{p.b} {p.c}"));
+
+            for (int i = 0; i < 20000; i++) {
+                String[] parts = ss.run(script).toString().split("\\|");
+
+                String[] globals = parts[0].split(" ");
+                assertEquals(globals[0], globals[1]);
+
+                String[] nested = parts[1].split(" ");
+                assertEquals(nested[0], nested[1]);
+            }
+        }
+        finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+}
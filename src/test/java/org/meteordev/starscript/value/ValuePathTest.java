@@ -0,0 +1,131 @@
+package org.meteordev.starscript.value;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValuePathTest {
+    private static final ValuePath PATH = ValuePath.of("player.stats.speed");
+
+    @Test
+    public void segments() {
+        assertEquals(3, PATH.length());
+        assertEquals("stats", PATH.get(1));
+        assertEquals("speed", PATH.last());
+        assertEquals(ValuePath.of("player.stats.speed"), PATH);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    public void repeatedAccess(boolean threadSafe) {
+        ValueMap map = new ValueMap(threadSafe);
+        ValuePath path = ValuePath.of("player.stats.speed");
+
+        for (int i = 0; i < 5; i++) {
+            map.set(path, i);
+            assertEquals(i, map.get(path).get().getNumber());
+            assertEquals(i, map.get("player.stats.speed").get().getNumber());
+        }
+
+        assertSame(map.get("player.stats").get().getMap(), path.parent(map, false));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    public void replacedMapInvalidatesCache(boolean threadSafe) {
+        ValueMap map = new ValueMap(threadSafe);
+        ValuePath path = ValuePath.of("player.stats.speed");
+
+        map.set(path, 1);
+        assertEquals(1, map.get(path).get().getNumber());
+
+        // Replace a map in the middle of the path
+        ValueMap stats = new ValueMap(threadSafe);
+        stats.set("speed", 2);
+        map.get("player").get().getMap().set("stats", stats);
+
+        assertSame(stats, path.parent(map, false));
+        assertEquals(2, map.get(path).get().getNumber());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    public void replacedWithNonMap(boolean threadSafe) {
+        ValueMap map = new ValueMap(threadSafe);
+        ValuePath path = ValuePath.of("player.stats.speed");
+
+        map.set(path, 1);
+        assertEquals(1, map.get(path).get().getNumber());
+
+        map.set("player.stats", 3);
+        assertNull(map.get(path));
+
+        map.set(path, 4);
+        assertEquals(4, map.get(path).get().getNumber());
+        assertEquals(4, map.get("player.stats.speed").get().getNumber());
+    }
+
+    @Test
+    public void removedMapInvalidatesCache() {
+        ValueMap map = new ValueMap();
+        ValuePath path = ValuePath.of("player.stats.speed");
+
+        map.set(path, 1);
+        assertEquals(1, map.get(path).get().getNumber());
+
+        map.remove("player");
+        assertNull(map.get(path));
+        assertNull(map.remove(path));
+    }
+
+    @Test
+    public void transactionInvalidatesCache() {
+        ValueMap map = new ValueMap();
+        ValuePath path = ValuePath.of("player.stats.speed");
+
+        map.set(path, 1);
+        assertEquals(1, map.get(path).get().getNumber());
+
+        ValueMap stats = new ValueMap();
+        stats.set("speed", 2);
+        map.update(tx -> tx.set("player.stats", stats));
+
+        assertEquals(2, map.get(path).get().getNumber());
+    }
+
+    @Test
+    public void differentRoots() {
+        ValueMap a = new ValueMap();
+        ValueMap b = new ValueMap();
+        ValuePath path = ValuePath.of("player.stats.speed");
+
+        a.set(path, 1);
+        b.set(path, 2);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1, a.get(path).get().getNumber());
+            assertEquals(2, b.get(path).get().getNumber());
+        }
+    }
+
+    @Test
+    public void suppliedMapsAreNotCached() {
+        ValueMap first = new ValueMap();
+        first.set("speed", 1);
+        ValueMap second = new ValueMap();
+        second.set("speed", 2);
+
+        AtomicInteger calls = new AtomicInteger();
+        ValueMap map = new ValueMap();
+        map.set("player", () -> Value.map(calls.getAndIncrement() % 2 == 0 ? first : second));
+
+        ValuePath path = ValuePath.of("player.speed");
+        assertEquals(1, map.get(path).get().getNumber());
+        assertEquals(2, map.get(path).get().getNumber());
+        assertEquals(1, map.get(path).get().getNumber());
+    }
+}